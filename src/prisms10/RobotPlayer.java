@@ -56,6 +56,8 @@ public strictfp class RobotPlayer {
                 // Call the run() method of the robot we instantiated above.
                 assert robot != null;
                 robot.run();
+                // then do optional work with the bytecodes left
+                robot.runDeferred();
 
             } catch (GameActionException e) {
                 // Oh no! It looks like we did something illegal in the Battlecode world. You should
@@ -0,0 +1,142 @@
+package prisms10;
+
+import battlecode.common.Clock;
+import battlecode.common.GameActionException;
+
+/**
+ * Schedules the work of a robot within the bytecode limit of a turn.
+ * <p>
+ * Critical actions (attacking, moving, collecting) are done by the controller itself at the beginning of the turn.
+ * Optional tasks, such as scanning the surroundings or flushing the memory cache, are registered here with a priority
+ * and an estimated bytecode cost, and run after the critical actions only while {@link Clock#getBytecodesLeft()} allows.
+ * <p>
+ * To keep the rotation fair, every turn a task is deferred raises its priority by one level, and a task deferred for
+ * {@link #MAX_DEFER} turns runs at the start of the next turn, before the critical actions, when the budget is full.
+ * The estimated cost of each task is refined with the bytecodes it actually used.
+ * <p>
+ * Background tasks (such as resumable multi-turn jobs) run last with whatever is left of the budget. They limit their
+ * own bytecode use, so they are never forced to run and their cost is not learned.
+ */
+public class TurnScheduler {
+
+    /**
+     * A piece of work registered to the scheduler.
+     */
+    public interface Task {
+        void run() throws GameActionException;
+    }
+
+    /**
+     * Decides whether a task is needed in the current turn, such as a scan that other robots nearby already run.
+     */
+    public interface Duty {
+        boolean onDuty();
+    }
+
+    // priorities, a smaller number runs earlier
+    public static final int PRIORITY_CRITICAL = 0;   // runs at the start of every turn
+    public static final int PRIORITY_HIGH = 1;
+    public static final int PRIORITY_NORMAL = 2;
+    public static final int PRIORITY_LOW = 3;
+    public static final int PRIORITY_BACKGROUND = 4; // runs last with the rest of the budget
+
+    static final int MAX_TASKS = 16;
+    static final int SAFETY_MARGIN = 300;            // bytecodes always kept for the end of the turn
+    static final int MAX_DEFER = 4;                  // turns a task can be deferred before it is forced to run
+
+    private final Task[] tasks = new Task[MAX_TASKS];
+    private final int[] priority = new int[MAX_TASKS];
+    private final int[] cost = new int[MAX_TASKS];   // estimated bytecode cost of each task
+    private final int[] deferred = new int[MAX_TASKS]; // number of turns each task has been waiting
+    private final boolean[] done = new boolean[MAX_TASKS];
+    private final Duty[] duties = new Duty[MAX_TASKS]; // null for tasks needed every turn
+    private int size = 0;
+
+    /**
+     * Registers a task that is run once per turn if the bytecode budget allows.
+     *
+     * @param priority      one of the {@code PRIORITY_*} constants
+     * @param estimatedCost initial estimate of the bytecodes used by one run of the task
+     * @param task          the task to run
+     */
+    public void register(int priority, int estimatedCost, Task task) {
+        if (size == MAX_TASKS) {
+            throw new IllegalStateException("too many scheduled tasks");
+        }
+        tasks[size] = task;
+        this.priority[size] = priority;
+        cost[size] = estimatedCost;
+        size++;
+    }
+
+    /**
+     * Registers a task that is only run in the turns its duty says it is needed. Skipping a task in a turn it is not on
+     * duty does not count as deferring it.
+     */
+    public void register(int priority, int estimatedCost, Task task, Duty duty) {
+        register(priority, estimatedCost, task);
+        duties[size - 1] = duty;
+    }
+
+    /**
+     * Runs the critical tasks and the tasks that have been deferred for too long, and skips the tasks not on duty in
+     * this turn. Should be called at the beginning of each turn.
+     */
+    public void runStartOfTurn() throws GameActionException {
+        for (int i = 0; i < size; i++) {
+            done[i] = false;
+            if (duties[i] != null && !duties[i].onDuty()) {
+                // not needed in this turn
+                done[i] = true;
+                deferred[i] = 0;
+                continue;
+            }
+            if (priority[i] == PRIORITY_CRITICAL || (deferred[i] >= MAX_DEFER && priority[i] != PRIORITY_BACKGROUND)) {
+                runTask(i);
+            }
+        }
+    }
+
+    /**
+     * Runs the remaining tasks in order of priority while the bytecode budget allows.
+     * Should be called after the critical actions of the turn.
+     */
+    public void runDeferred() throws GameActionException {
+        while (true) {
+            // pick the most urgent task that has not run in this turn
+            int next = -1;
+            int nextKey = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (done[i]) continue;
+                int key = (priority[i] == PRIORITY_BACKGROUND) ? Integer.MAX_VALUE - 1 : priority[i] - deferred[i];
+                if (key < nextKey) {
+                    nextKey = key;
+                    next = i;
+                }
+            }
+            if (next == -1) {
+                break;
+            }
+            if (Clock.getBytecodesLeft() - SAFETY_MARGIN < cost[next]) {
+                // this one does not fit, but a cheaper one still may
+                done[next] = true;
+                deferred[next]++;
+                continue;
+            }
+            runTask(next);
+        }
+    }
+
+    private void runTask(int i) throws GameActionException {
+        done[i] = true;
+        deferred[i] = 0;
+        int before = Clock.getBytecodeNum();
+        tasks[i].run();
+        int used = Clock.getBytecodeNum() - before;
+        if (used > 0 && priority[i] != PRIORITY_BACKGROUND) {
+            // moving average of the measured cost
+            cost[i] = (cost[i] * 3 + used) / 4;
+        }
+    }
+
+}
@@ -1,10 +1,30 @@
 package prisms10.controller;
 
 import battlecode.common.*;
-import prisms10.memory.MemoryCache;
+import prisms10.strategy.RelayPlanner;
+import prisms10.util.Map;
 
+/**
+ * Amplifiers act as relays, so that robots far from the headquarters can write shared memory.
+ * <p>
+ * Every {@link #RETARGET_ROUNDS} rounds the amplifier picks a relay position with {@link RelayPlanner}. Each turn it then
+ * scores the tiles around it: each friendly robot within write range that is not already covered by a headquarters adds
+ * to the score, tiles within reach of enemy launchers and tiles close to another amplifier are penalized, and tiles
+ * closer to the relay position are preferred.
+ */
 public class Amplifier extends Robot {
 
+    static final int RETARGET_ROUNDS = 20;
+    static final int COVER_WEIGHT = 10;              // score per friendly robot in write range
+    static final int DANGER_WEIGHT = 100;            // score deducted per enemy launcher in reach
+    static final int DANGER_RADIUS_SQ = 26;          // launcher action radius plus one step
+    static final int OVERLAP_WEIGHT = 15;            // score deducted per friendly amplifier nearby
+    static final int OVERLAP_RADIUS_SQ = 36;         // amplifiers closer than this cover mostly the same robots
+    static final int TARGET_WEIGHT = 3;              // score deducted per tile of diagonal distance to the relay position
+
+    RelayPlanner planner = new RelayPlanner();
+    int plannedRound = -RETARGET_ROUNDS;
+
     public Amplifier(RobotController rc) {
         super(rc);
         robotType = RobotType.AMPLIFIER;
@@ -14,8 +34,91 @@ public class Amplifier extends Robot {
     @Override
     public void run() throws GameActionException {
         super.run();
-        randomMove();
-        MemoryCache.writeBackLocs(rc);
+        if (rc.getRoundNum() - plannedRound >= RETARGET_ROUNDS) {
+            planner.assign(rc);
+            plannedRound = rc.getRoundNum();
+        }
+        MapLocation target = planner.getTarget();
+        boolean alone = sensing.robots().length == 0;
+        if (target == null && alone) {
+            randomMove();
+            return;
+        }
+        if (rc.isMovementReady()) {
+            Direction best = bestDirection(target);
+            if (best != Direction.CENTER) {
+                rc.move(best);
+            } else if (target != null && alone && !rc.getLocation().equals(target)) {
+                // nothing around to weigh the tiles, head for the relay position
+                checkProgress(target);
+                moveToward(target, true, true);
+            }
+        }
+    }
+
+    /**
+     * Finds the direction to the adjacent tile (or the current one) with the best relay score.
+     */
+    Direction bestDirection(MapLocation target) {
+        MapLocation myLocation = rc.getLocation();
+        RobotInfo[] robots = sensing.robots();
+        boolean[] covered = coveredByHeadquarters(robots);
+        Direction best = Direction.CENTER;
+        int bestScore = Integer.MIN_VALUE;
+        for (Direction dir : Direction.values()) {
+            if (dir != Direction.CENTER && !rc.canMove(dir)) continue;
+            int score = relayScore(myLocation.add(dir), target, robots, covered);
+            if (score > bestScore) {
+                best = dir;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores a tile; {@code covered} marks the robots a friendly headquarters can already write for.
+     */
+    int relayScore(MapLocation tile, MapLocation target, RobotInfo[] robots, boolean[] covered) {
+        int score = 0;
+        for (int i = robots.length; --i >= 0; ) {
+            RobotInfo robot = robots[i];
+            int dist = tile.distanceSquaredTo(robot.getLocation());
+            if (robot.getTeam() != rc.getTeam()) {
+                if (robot.getType() == RobotType.LAUNCHER && dist <= DANGER_RADIUS_SQ) {
+                    score -= DANGER_WEIGHT;
+                }
+            } else if (robot.getType() == RobotType.AMPLIFIER) {
+                if (dist <= OVERLAP_RADIUS_SQ) {
+                    score -= OVERLAP_WEIGHT;
+                }
+            } else if (robot.getType() != RobotType.HEADQUARTERS && dist <= GameConstants.DISTANCE_SQUARED_FROM_SIGNAL_AMPLIFIER &&
+                    !covered[i]) {
+                score += COVER_WEIGHT;
+            }
+        }
+        if (target != null) {
+            score -= Map.diagonalDist(tile, target) * TARGET_WEIGHT;
+        }
+        return score;
+    }
+
+    /**
+     * Marks the robots within write range of a friendly headquarters, once per turn rather than once per tile.
+     */
+    private boolean[] coveredByHeadquarters(RobotInfo[] robots) {
+        boolean[] covered = new boolean[robots.length];
+        for (RobotInfo hq : robots) {
+            if (hq.getType() != RobotType.HEADQUARTERS || hq.getTeam() != rc.getTeam()) continue;
+            MapLocation hqLocation = hq.getLocation();
+            for (int i = robots.length; --i >= 0; ) {
+                if (hqLocation.distanceSquaredTo(robots[i].getLocation()) <=
+                        GameConstants.DISTANCE_SQUARED_FROM_HEADQUARTER) {
+                    covered[i] = true;
+                }
+            }
+        }
+        return covered;
     }
 
 }
@@ -2,14 +2,23 @@ package prisms10.controller;
 
 import battlecode.common.*;
 import prisms10.memory.*;
+import prisms10.strategy.ElixirPlanner;
+import prisms10.strategy.Params;
+import prisms10.util.Debug;
+import prisms10.util.Loc;
 import prisms10.util.Map;
+import prisms10.util.ProgressMonitor;
+import prisms10.util.SectorGrid;
+import prisms10.util.ThreatMap;
 
-import java.util.ArrayList;
-import java.util.List;
 
 public class Carrier extends Robot {
 
     private int bindToIslandID;  // if the carrier is moving an anchor to an island, this field sets to the island ID it binds to
+    private MapLocation waypoint;  // next location to go to on the way back to headquarters
+    private final ThreatMap threats = new ThreatMap();  // damage the enemies in sight could deal next turn
+    private ResourceType crossResource;                 // resource delivered to the well being converted to elixir
+    static final int UNSAFE_DAMAGE = 20;               // targets exposed to this much damage are given up
 
     public Carrier(RobotController rc) {
         super(rc);
@@ -21,12 +30,25 @@ public class Carrier extends Robot {
     public void run() throws GameActionException {
 
         super.run();
+        threats.update(sensing.enemies(), rc.getTeam(), rc.getRoundNum());
 
         Anchor anchor = rc.getAnchor();
         // update current state
-        rc.setIndicatorString("current state: " + state + ", state counter = " + stateCounter);
-        if (stateCounter > STATE_COUNTER_MAX && anchor == null) {
-            rc.disintegrate();
+        if (Debug.ON) rc.setIndicatorString("current state: " + state + ", state counter = " + stateCounter);
+        if (state == 3 && bindTo != null) {
+            MapLocation next = fieldWaypoint(bindTo);
+            if (!next.equals(waypoint)) {
+                waypoint = next;
+                progress.retarget();
+            }
+        } else {
+            waypoint = null;
+        }
+        if (state != 0 && bindTo != null) {
+            recoverIfStuck();
+        }
+        if (state != 0 && state != 3 && bindTo != null && isUnsafe(bindTo)) {
+            abandonUnsafeTarget();
         }
         // perform an operation according to its state
         switch (state) {
@@ -39,6 +61,8 @@ public class Carrier extends Robot {
                     // in wandering state, if can place the anchor, place it immediately
                     if (rc.canPlaceAnchor()) {
                         rc.placeAnchor();
+                        // the island changes hands
+                        sensing.invalidate();
                     }
                 }
                 // try to get an anchor
@@ -56,25 +80,44 @@ public class Carrier extends Robot {
                         break;
                     }
                 }
+                // deliver the other resource to the well being converted to elixir
+                if (rc.getWeight() == 0 && ElixirPlanner.isDelivering(rc)) {
+                    crossResource = ElixirPlanner.crossResource(ElixirPlanner.targetWell(rc));
+                    bindTo = nearestWellOfType(crossResource);
+                    if (bindTo != null) {
+                        changeState(4);
+                        break;
+                    }
+                }
                 // if the bot can still carry stuff, try to find a well
-                if (rc.getWeight() < 40) {
-                    List<MapLocation> locations = new ArrayList<>();
-                    for (int i = MemorySection.IDX_WELL; i < MemorySection.IDX_HQ; i++) {
+                if (rc.getWeight() < Params.CARRIER_CARGO) {
+                    int[] locations = new int[MemorySection.WELL.getEndIdx() - MemorySection.WELL.getStartIdx()];
+                    int[] elixirWells = new int[locations.length];
+                    int numLocations = 0, numElixirWells = 0;
+                    for (int i = MemorySection.WELL.getStartIdx(); i < MemorySection.WELL.getEndIdx(); i++) {
                         // find a valid well and set it for target
                         int pos = rc.readSharedArray(i);
-                        if (pos != MemoryAddress.MASK_COORDS) {
-                            locations.add(MemoryAddress.toLocation(pos));
+                        if (pos != MemoryAddress.MASK_COORDS && !isUnsafe(Loc.x(pos), Loc.y(pos))) {
+                            locations[numLocations++] = pos;
+                            if ((pos & MemoryAddress.MASK_SUBTYPE) >> 12 == ResourceType.ELIXIR.resourceID) {
+                                elixirWells[numElixirWells++] = pos;
+                            }
                         }
                     }
-                    if (locations.size() != 0) {
+                    if (numElixirWells != 0 && random.nextBoolean()) {
+                        // half of the carriers collect elixir once there is an elixir well
+                        locations = elixirWells;
+                        numLocations = numElixirWells;
+                    }
+                    if (numLocations != 0) {
                         // if the robot can find a well, target toward the well
-                        bindTo = locations.get(Math.abs(random.nextInt()) % locations.size());
+                        bindTo = Loc.toLocation(locations[random.nextInt(numLocations)]);
                         changeState(1);
                         break;
                     }
                 }
                 // if the bot does not find any job, wander randomly
-                Direction dir = Direction.values()[(random.nextInt() % 8 + 8) % 8];
+                Direction dir = Direction.values()[random.nextInt(8)];
                 if (rc.canMove(dir)) {
                     rc.move(dir);
                 }
@@ -82,49 +125,49 @@ public class Carrier extends Robot {
 
             case 1:
                 stateCounter++;
-                rc.setIndicatorString("Targeting to " + bindTo.x + ", " + bindTo.y);
+                if (Debug.ON) rc.setIndicatorString("Targeting to " + bindTo.x + ", " + bindTo.y);
                 MapLocation current = rc.getLocation();
                 if (rc.canCollectResource(bindTo, -1)) {
-                    rc.setIndicatorString("Collecting resource");
+                    if (Debug.ON) rc.setIndicatorString("Collecting resource");
                     // if can collect resource, collect
                     rc.collectResource(bindTo, -1);
-                    if (rc.getWeight() >= 40) {
+                    finishTrip(bindTo);
+                    if (rc.getWeight() >= Params.CARRIER_CARGO) {
                         bindTo = null;
                         changeState(3);
                     }
-                } else {
+                } else if (!evade(bindTo)) {
                     // otherwise, move toward the destination
-                    moveToward(bindTo);
+                    navigateTo(bindTo, bindTo);
                 }
                 break;
 
             case 2:
                 stateCounter++;
                 if (bindTo == null) {
-                    bindToIslandID = -1;
-                    int minDist = Integer.MAX_VALUE;
-                    for (int i = 0; i < 36; i++) {
-                        int read = rc.readSharedArray(i + MemorySection.IDX_SKY_ISLAND);
-                        if (read != MemoryAddress.MASK_COORDS && ((read & MemoryAddress.MASK_SUBTYPE) == 0)) {
-                            // if the island has not been marked, navigate the bot to it
-                            MapLocation skyIsland = MemoryAddress.toLocation(read);
-                            int distance = Map.diagonalDist(skyIsland, rc.getLocation());
-                            if (distance < minDist) {
-                                minDist = distance;
-                                bindTo = skyIsland;
-                                bindToIslandID = i;
-                            }
-                        }
-                    }
+                    selectIsland(-1);
                 }
-                // if arrived at bindTo location and can place anchor, place it
-                if (rc.senseIsland(rc.getLocation()) == bindToIslandID && rc.canPlaceAnchor()) {
+                // once some tiles of the island are seen, head to the nearest one instead of the shared location
+                if (bindTo != null && islands.tileCount(bindToIslandID) > 0) {
+                    bindTo = islands.nearestTile(bindToIslandID, rc.getLocation());
+                }
+                // if arrived at any tile of the island and can place anchor, place it
+                if (sensing.ownIsland() == bindToIslandID && rc.canPlaceAnchor()) {
                     rc.placeAnchor();
+                    // the island changes hands
+                    sensing.invalidate();
+                    bindTo = null;
                     changeState(3);
+                    break;
                 }
                 // otherwise, walk toward the sky island
                 if (bindTo != null) {
-                    moveToward(bindTo);
+                    if (!evade(bindTo)) {
+                        moveToward(bindTo);
+                    }
+                } else if (anchor != null && !threats.isEmpty()) {
+                    // no safe island to go to, keep the anchor away from the enemies
+                    retreat();
                 } else {
                     changeState(0);
                 }
@@ -134,18 +177,7 @@ public class Carrier extends Robot {
                 stateCounter++;
                 if (bindTo == null) {
                     // find the headquarter with the smallest distance
-                    int minDist = Integer.MAX_VALUE;
-                    for (int i = MemorySection.IDX_HQ; i < MemorySection.IDX_SKY_ISLAND; i++) {
-                        int read = rc.readSharedArray(i);
-                        if (read != MemoryAddress.MASK_COORDS) {
-                            MapLocation headquarter = MemoryAddress.toLocation(read);
-                            int distance = Map.diagonalDist(headquarter, rc.getLocation());
-                            if (distance < minDist) {
-                                minDist = distance;
-                                bindTo = headquarter;
-                            }
-                        }
-                    }
+                    bindTo = nearestInSection(MemorySection.HQ, null);
                 }
                 // try to transfer every resource back to headquarter
                 boolean transferred = false;          // whether the bot successfully transferred any resource to headquarter
@@ -155,16 +187,305 @@ public class Carrier extends Robot {
                         transferred = true;
                     }
                 }
-                if (!transferred) {
-                    moveToward(bindTo);
-                } else if (rc.getWeight() <= 0) {
+                if (transferred) {
+                    // only a trip that reached the headquarters is worth caching
+                    finishTrip(bindTo);
+                    if (rc.getWeight() <= 0) {
+                        changeState(0);
+                    }
+                } else if (!evade(waypoint != null ? waypoint : bindTo)) {
+                    navigateTo(bindTo, waypoint != null ? waypoint : bindTo);
+                }
+                break;
+
+            case 4:
+                stateCounter++;
+                if (!ElixirPlanner.isActive(rc)) {
+                    bindTo = null;
+                    changeState(0);
+                    break;
+                }
+                if (bindTo == null) {
+                    bindTo = nearestWellOfType(crossResource);
+                    if (bindTo == null) {
+                        changeState(0);
+                        break;
+                    }
+                }
+                if (rc.canCollectResource(bindTo, -1)) {
+                    rc.collectResource(bindTo, -1);
+                    finishTrip(bindTo);
+                    if (rc.getWeight() >= Params.CARRIER_CARGO) {
+                        bindTo = null;
+                        changeState(5);
+                    }
+                } else if (!evade(bindTo)) {
+                    navigateTo(bindTo, bindTo);
+                }
+                break;
+
+            case 5:
+                stateCounter++;
+                if (!ElixirPlanner.isActive(rc)) {
+                    // the well is converted, take the resources home instead
+                    bindTo = null;
+                    changeState(3);
+                    break;
+                }
+                if (bindTo == null) {
+                    bindTo = MemoryAddress.toLocation(ElixirPlanner.targetWell(rc));
+                }
+                int amount = rc.getResourceAmount(crossResource);
+                if (rc.canTransferResource(bindTo, crossResource, amount)) {
+                    rc.transferResource(bindTo, crossResource, amount);
+                    finishTrip(bindTo);
+                    outbox.postElixirDelivery(amount, rc.getRoundNum());
+                    bindTo = null;
+                    changeState(rc.getWeight() > 0 ? 3 : 0);
+                } else if (!evade(bindTo)) {
+                    navigateTo(bindTo, bindTo);
+                }
+                break;
+        }
+
+    }
+
+    /**
+     * Recovers the carrier if it stopped making progress toward its target, instead of giving up the unit.
+     * The navigator is switched first, then an alternate target of the same kind is chosen, and finally the job is
+     * dropped so that the carrier is re-assigned.
+     */
+    private void recoverIfStuck() throws GameActionException {
+        if ((state == 1 || state == 4) && rc.canCollectResource(bindTo, -1)) {
+            // collecting at the well is not being stuck
+            progress.retarget();
+            return;
+        }
+        switch (checkProgress(waypoint != null ? waypoint : bindTo)) {
+            case ProgressMonitor.ALTERNATE_TARGET:
+                MapLocation alternate = null;
+                if (state == 1) {
+                    alternate = nearestInSection(MemorySection.WELL, bindTo);
+                } else if (state == 2) {
+                    int islandID = bindToIslandID;
+                    bindTo = null;
+                    selectIsland(islandID);
+                    alternate = bindTo;
+                } else if (state == 3) {
+                    alternate = nearestInSection(MemorySection.HQ, bindTo);
+                }
+                if (alternate != null) {
+                    bindTo = alternate;
+                    progress.retarget();
+                    break;
+                }
+                // no alternate target, drop the job
+            case ProgressMonitor.REASSIGN:
+                // keep the anchor or the resources, and pick the job again from scratch; a full carrier could take no
+                // job in state 0, so it heads for a headquarters other than the one it got stuck on
+                MapLocation stuckOn = bindTo;
+                bindTo = null;
+                if (rc.getWeight() >= Params.CARRIER_CARGO) {
+                    changeState(3);
+                    bindTo = nearestInSection(MemorySection.HQ, stuckOn);
+                } else {
                     changeState(0);
                 }
                 break;
         }
-        // clear up repeated information in locationsToWrite array
-        MemoryCache.writeBackLocs(rc);
+    }
+
+    /**
+     * Whether a target in sight is exposed to enemy attackers.
+     */
+    private boolean isUnsafe(MapLocation target) {
+        return isUnsafe(target.x, target.y);
+    }
 
+    private boolean isUnsafe(int x, int y) {
+        return !threats.isEmpty() && threats.damageAt(x, y) >= UNSAFE_DAMAGE;
+    }
+
+    /**
+     * Gives up a well or an island that enemies are guarding: switches to a safe well, takes the resources home, or
+     * switches to another island, keeping the anchor. Deliveries for the elixir conversion are dropped.
+     */
+    private void abandonUnsafeTarget() throws GameActionException {
+        if (state == 1) {
+            MapLocation alternate = nearestInSection(MemorySection.WELL, bindTo);
+            if (alternate != null && !isUnsafe(alternate)) {
+                bindTo = alternate;
+                progress.retarget();
+            } else {
+                bindTo = null;
+                changeState(rc.getWeight() > 0 ? 3 : 0);
+            }
+        } else if (state == 2) {
+            int islandID = bindToIslandID;
+            bindTo = null;
+            selectIsland(islandID);
+            if (bindTo != null && isUnsafe(bindTo)) {
+                bindTo = null;
+            }
+            progress.retarget();
+        } else if (state == 4) {
+            bindTo = null;
+            changeState(0);
+        } else if (state == 5) {
+            // keep the resources for the headquarters
+            bindTo = null;
+            changeState(3);
+        }
+    }
+
+    /**
+     * Steps around the tiles enemy attackers can reach on the way to a target. Returns {@code false} without moving if
+     * no enemy threatens the current tile or the direct step toward the target, so that the normal navigation is used.
+     *
+     * @return {@code true} if the move of this turn was decided here
+     */
+    private boolean evade(MapLocation target) throws GameActionException {
+        if (threats.isEmpty() || !rc.isMovementReady()) {
+            return false;
+        }
+        MapLocation myLocation = rc.getLocation();
+        Direction direct = Map.directionTo(myLocation, target);
+        if (threats.damageAt(myLocation) == 0 && threats.damageAt(myLocation.add(direct)) == 0) {
+            return false;
+        }
+        Direction best = Direction.CENTER;
+        int bestCost = threats.damageAt(myLocation) * 1000 + Map.diagonalDist(myLocation, target);
+        for (Direction dir : Direction.allDirections()) {
+            if (dir == Direction.CENTER || !rc.canMove(dir)) continue;
+            MapLocation next = myLocation.add(dir);
+            int cost = threats.damageAt(next) * 1000 + Map.diagonalDist(next, target);
+            if (cost < bestCost) {
+                best = dir;
+                bestCost = cost;
+            }
+        }
+        if (best != Direction.CENTER) {
+            rc.move(best);
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the adjacent tile least exposed to enemy attackers and farthest from them.
+     */
+    private void retreat() throws GameActionException {
+        MapLocation myLocation = rc.getLocation();
+        Direction best = null;
+        int bestDamage = threats.damageAt(myLocation);
+        int bestDist = threats.closestDistSq(myLocation.x, myLocation.y);
+        for (Direction dir : Direction.allDirections()) {
+            if (dir == Direction.CENTER || !rc.canMove(dir)) continue;
+            MapLocation next = myLocation.add(dir);
+            int damage = threats.damageAt(next);
+            int dist = threats.closestDistSq(next.x, next.y);
+            if (damage < bestDamage || (damage == bestDamage && dist > bestDist)) {
+                best = dir;
+                bestDamage = damage;
+                bestDist = dist;
+            }
+        }
+        if (best != null) {
+            rc.move(best);
+        }
+    }
+
+    /**
+     * Returns the next location to go to on the way to a headquarters. If the headquarters has published its distance
+     * field, the carrier heads to the center of the next-hop sector until it reaches the sector of the headquarters.
+     * A next hop pointing straight at the sector of the headquarters tells nothing of walls, so the carrier then heads
+     * to the headquarters itself rather than detouring through the center of the sector.
+     */
+    private MapLocation fieldWaypoint(MapLocation headquarters) throws GameActionException {
+        int hqIndex = MemorySection.HQ.contains(rc, MemoryAddress.fromLocation(headquarters)) - MemorySection.HQ.getStartIdx();
+        if (!DistanceField.isPublished(rc, hqIndex)) {
+            return headquarters;
+        }
+        int width = rc.getMapWidth(), height = rc.getMapHeight();
+        int sector = SectorGrid.sectorOf(rc.getLocation(), width, height);
+        int hqSector = SectorGrid.sectorOf(headquarters, width, height);
+        if (sector == hqSector) {
+            return headquarters;
+        }
+        Direction hop = DistanceField.nextHop(rc, hqIndex, sector);
+        if (SectorGrid.pointsAt(sector, hop, hqSector)) {
+            return headquarters;
+        }
+        return SectorGrid.neighborCenter(sector, hop, width, height);
+    }
+
+    /**
+     * Selects the nearest island that is not occupied by any team as the target of this carrier.
+     *
+     * @param excludeID the island not to select, or {@code -1}
+     */
+    private void selectIsland(int excludeID) throws GameActionException {
+        bindToIslandID = -1;
+        int minDist = Integer.MAX_VALUE;
+        for (int id = 1; id <= IslandMemory.count(); id++) {
+            if (id == excludeID) continue;
+            if (IslandMemory.isKnown(rc, id) && IslandMemory.status(rc, id) == IslandMemory.NEUTRAL) {
+                // if the island has not been marked, navigate the bot to it
+                MapLocation skyIsland = IslandMemory.location(rc, id);
+                int distance = Map.diagonalDist(skyIsland, rc.getLocation());
+                if (distance < minDist) {
+                    minDist = distance;
+                    bindTo = skyIsland;
+                    bindToIslandID = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest safe well of a resource type recorded in shared memory.
+     *
+     * @return the location of the well, or {@code null} if there is none
+     */
+    private MapLocation nearestWellOfType(ResourceType type) throws GameActionException {
+        MapLocation here = rc.getLocation();
+        int nearest = -1;
+        int minDist = Integer.MAX_VALUE;
+        for (int i = MemorySection.WELL.getStartIdx(); i < MemorySection.WELL.getEndIdx(); i++) {
+            int read = rc.readSharedArray(i);
+            if (read == MemoryAddress.MASK_COORDS || (read & MemoryAddress.MASK_SUBTYPE) >> 12 != type.resourceID) {
+                continue;
+            }
+            int distance = Loc.diagonalDist(read, here);
+            if (distance < minDist && !isUnsafe(Loc.x(read), Loc.y(read))) {
+                minDist = distance;
+                nearest = read;
+            }
+        }
+        return (nearest == -1) ? null : Loc.toLocation(nearest);
+    }
+
+    /**
+     * Finds the location recorded in a section of shared memory that is nearest to this carrier.
+     *
+     * @param exclude a location not to return, or {@code null}
+     * @return the nearest location, or {@code null} if the section has no other location
+     */
+    private MapLocation nearestInSection(MemorySection section, MapLocation exclude) throws GameActionException {
+        MapLocation here = rc.getLocation();
+        int excluded = (exclude == null) ? -1 : Loc.pack(exclude);
+        int nearest = -1;
+        int minDist = Integer.MAX_VALUE;
+        for (int i = section.getStartIdx(); i < section.getEndIdx(); i++) {
+            int read = rc.readSharedArray(i);
+            if (read != MemoryAddress.MASK_COORDS) {
+                int distance = Loc.diagonalDist(read, here);
+                if (distance < minDist && (read & MemoryAddress.MASK_COORDS) != excluded) {
+                    minDist = distance;
+                    nearest = read;
+                }
+            }
+        }
+        return (nearest == -1) ? null : Loc.toLocation(nearest);
     }
 
 }
@@ -1,21 +1,36 @@
 package prisms10.controller;
 
 import battlecode.common.*;
+import prisms10.memory.DistanceField;
+import prisms10.memory.EnemyForce;
+import prisms10.memory.IslandMemory;
 import prisms10.memory.MemoryAddress;
 import prisms10.memory.MemoryCache;
 import prisms10.memory.MemorySection;
+import prisms10.memory.Timestamp;
+import prisms10.memory.WallMap;
+import prisms10.strategy.ElixirPlanner;
+import prisms10.strategy.IslandScheduler;
+import prisms10.strategy.Params;
+import prisms10.util.Debug;
+import prisms10.util.DistanceFieldJob;
 import prisms10.util.Map;
 
 public class Headquarters extends Robot {
 
-    public static final int MIN_COMBAT_FOR_GLOBAL = 4;    // minimum number of combats to trigger the global combat mode
+    static final int THREAT_DIST = 12;                    // enemy launchers this close threaten the headquarters
 
     // the first few robots the headquarters will build
     static final RobotType[] initialRobots = {
             RobotType.AMPLIFIER, RobotType.CARRIER, RobotType.LAUNCHER, RobotType.LAUNCHER
     };
-    // number of rounds producing items randomly before producing an anchor is required
-    static final int nextAnchorRound = 30;
+
+    // distance field computed in the background and shared with carriers
+    static final int FIELD_REFRESH_ROUNDS = 50;      // how often the wall summary is checked for new walls
+    DistanceFieldJob fieldJob = null;
+    boolean fieldPublished = false;
+    int fieldWalls = -1;                             // blocked cells of the wall summary the field was computed with
+    int built = 0;                                   // robots built since the start of the game, for telemetry
 
     public Headquarters(RobotController rc) {
         super(rc);
@@ -26,28 +41,40 @@ public class Headquarters extends Robot {
     @Override
     public void run() throws GameActionException {
         // initialize memory section
-        if ((rc.readSharedArray(MemorySection.IDX_GAME_STAT) & 0x8000) == 0) {
-            rc.writeSharedArray(MemorySection.IDX_GAME_STAT, 0x8000);
+        if ((rc.readSharedArray(MemorySection.IDX_GAME_STAT) & MemorySection.GAME_STAT_INITIALIZED) == 0) {
+            rc.writeSharedArray(MemorySection.IDX_GAME_STAT, MemorySection.GAME_STAT_INITIALIZED);
             // initialize shared memory
-            for (int i = 0; i < MemorySection.IDX_COMBAT_END; i++) {
-                rc.writeSharedArray(i, MemoryAddress.MASK_COORDS);
+            for (MemorySection section : MemorySection.values()) {
+                section.clear(rc);
             }
         }
         // scan nearby info
         super.run();
         // record the current headquarters' position into shared memory
         int currentLocation = MemoryAddress.fromLocation(rc.getLocation());
-        for (int i = 8; i < 11; i++) {
+        int hqIndex = -1;
+        for (int i = MemorySection.HQ.getStartIdx(); i < MemorySection.HQ.getEndIdx(); i++) {
             int data = rc.readSharedArray(i);
             if (data == currentLocation) {
                 // repeated information found in shared memory
+                hqIndex = i - MemorySection.HQ.getStartIdx();
                 break;
             }
             if (rc.readSharedArray(i) == MemoryAddress.MASK_COORDS) {
                 rc.writeSharedArray(i, currentLocation);
+                hqIndex = i - MemorySection.HQ.getStartIdx();
                 break;
             }
         }
+        updateDistanceField(hqIndex);
+        if (hqIndex == 0 && rc.getRoundNum() % Timestamp.TICK_ROUNDS == 0) {
+            // upkeep of shared memory, once every tick is enough: keep stale timestamps from wrapping around to look
+            // fresh, drop old enemy sightings, and plan the elixir conversion
+            IslandMemory.clampStamps(rc, rc.getRoundNum());
+            MemorySection.WELL_STAMP.clampStamps(rc, rc.getRoundNum(), 0);
+            EnemyForce.decay(rc, rc.getRoundNum());
+            ElixirPlanner.plan(rc);
+        }
         // produce first few items as scheduled in array `initialRobots`
         if (state < initialRobots.length) {
             // randomly select one location on the rim of the HQ to build a robot
@@ -55,22 +82,28 @@ public class Headquarters extends Robot {
             // randomly select the first robot
             do {
                 RobotType curType = initialRobots[state];
-                MapLocation curLoc = rimLocs[Math.abs(random.nextInt()) % 16];
+                MapLocation curLoc = rimLocs[random.nextInt(rimLocs.length)];
                 if (rc.canBuildRobot(curType, curLoc)) {
                     rc.buildRobot(curType, curLoc);
                     state++;
+                    built++;
                 } else {
                     break;
                 }
             } while (state < initialRobots.length);
 
         }
+        if (state >= initialRobots.length && rc.getNumAnchors(Anchor.STANDARD) == 0 && IslandScheduler.anchorNeeded(rc)) {
+            // an island needs to be claimed or recaptured, produce an anchor immediately
+            state = initialRobots.length + Params.NEXT_ANCHOR_ROUND;
+        }
         while (true) {
             // repeat until can't build more
-            if (state == initialRobots.length + nextAnchorRound) {
+            if (state == initialRobots.length + Params.NEXT_ANCHOR_ROUND) {
                 // produce an anchor on specific state
                 if (rc.canBuildAnchor(Anchor.STANDARD)) {
                     rc.buildAnchor(Anchor.STANDARD);
+                    IslandScheduler.clearAnchorRequest(rc);
                     state = initialRobots.length;
                 } else break;
             } else {
@@ -80,31 +113,79 @@ public class Headquarters extends Robot {
                 float randNum = random.nextFloat();
                 // check the number of ongoing battles
                 int battles = MemoryCache.readBySection(rc, MemorySection.COMBAT).size();
-                if (randNum < ((battles >= MIN_COMBAT_FOR_GLOBAL)? 0.32: 0.56)) {
+                // enemy launchers approaching this headquarters call for launchers built on their side
+                int threat = EnemyForce.mostThreatening(rc, rc.getLocation(), rc.getRoundNum());
+                boolean threatened = threat != -1 &&
+                        Map.diagonalDist(rc.getLocation(), EnemyForce.location(rc, threat)) <= THREAT_DIST;
+                if (threatened) {
+                    MapLocation enemy = EnemyForce.predictedLocation(rc, threat, rc.getRoundNum());
+                    MapLocation facing = Map.getClosestLocOnCircToTar(rc.getLocation(), robotType.actionRadiusSquared, enemy);
+                    if (facing != null && rc.canBuildRobot(RobotType.LAUNCHER, facing)) {
+                        newLoc = facing;
+                    }
+                }
+                if (randNum < ((battles >= Params.MIN_COMBAT_FOR_GLOBAL || threatened)? 0.32: 0.56)) {
                     // probability for carrier: 32% (battle); 50% (non-battle)
-                    rc.setIndicatorString("Trying to build a carrier");
+                    if (Debug.ON) rc.setIndicatorString("Trying to build a carrier");
                     if (rc.canBuildRobot(RobotType.CARRIER, newLoc)) {
                         rc.buildRobot(RobotType.CARRIER, newLoc);
                         state++;
+                        built++;
                     } else break;
                 } else if (randNum < 0.96) {
                     // probability for launcher: 64% (battle); 40% (non-battle)
-                    rc.setIndicatorString("Trying to build a launcher");
+                    if (Debug.ON) rc.setIndicatorString("Trying to build a launcher");
                     if (rc.canBuildRobot(RobotType.LAUNCHER, newLoc)) {
                         rc.buildRobot(RobotType.LAUNCHER, newLoc);
                         state++;
+                        built++;
                     } else break;
                 } else {
                     // probability for amplifier: 4%
-                    rc.setIndicatorString("Trying to build an amplifier");
+                    if (Debug.ON) rc.setIndicatorString("Trying to build an amplifier");
                     if (rc.canBuildRobot(RobotType.AMPLIFIER, newLoc)) {
                         rc.buildRobot(RobotType.AMPLIFIER, newLoc);
                         state++;
+                        built++;
                     } else break;
                 }
             }
         }
+        if (Debug.ON) telemetry.debug_headquarters(built);
+
+    }
 
+    /**
+     * Computes the distance field from this headquarters in the background, over the tiles it has seen and the cells
+     * the team reported as blocked in the {@link WallMap}, and publishes its compressed form once finished. The field
+     * is computed again when new blocked cells are reported. Only done if there is space for the field of this
+     * headquarters on this map. A field where no known wall lengthens any path is not published, as it only points at
+     * the headquarters.
+     *
+     * @param hqIndex index of this headquarters in {@link MemorySection#HQ}
+     */
+    private void updateDistanceField(int hqIndex) throws GameActionException {
+        if (!DistanceField.hasBlock(hqIndex)) {
+            return;
+        }
+        if (fieldJob != null && fieldJob.isFinished() && !fieldPublished) {
+            fieldPublished = !fieldJob.hasDetour() || DistanceField.publish(rc, hqIndex, fieldJob.getNextHops());
+        }
+        boolean due = fieldJob == null || (fieldPublished && rc.getRoundNum() % FIELD_REFRESH_ROUNDS == 0);
+        if (!due) {
+            return;
+        }
+        int walls = WallMap.isAvailable() ? WallMap.count(rc) : 0;
+        if (fieldJob != null && walls == fieldWalls) {
+            return;
+        }
+        // headquarters do not move, so the rest of the terrain comes from the wall summary
+        scanTerrain();
+        boolean[] blocked = WallMap.isAvailable() ? WallMap.read(rc) : new boolean[WallMap.CELLS * WallMap.CELLS];
+        fieldJob = new DistanceFieldJob(rc.getLocation(), rc.getMapWidth(), rc.getMapHeight(), passable, blocked);
+        jobs.submit(fieldJob);
+        fieldPublished = false;
+        fieldWalls = walls;
     }
 
 }
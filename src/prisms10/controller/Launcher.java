@@ -2,6 +2,10 @@ package prisms10.controller;
 
 import battlecode.common.*;
 import prisms10.memory.*;
+import prisms10.strategy.IslandScheduler;
+import prisms10.strategy.Params;
+import prisms10.util.Debug;
+import prisms10.util.Loc;
 import prisms10.util.Map;
 
 import java.util.ArrayList;
@@ -22,8 +26,18 @@ public class Launcher extends Robot {
      */
     int symmetryUsed = -1;
 
+    IslandScheduler islandScheduler = new IslandScheduler();
+    int missionRound;                 // round when the current island mission was assigned
+
     public void tryMoveToCombatArea() throws GameActionException {
         if (!followCombatArea) return;
+        // reinforce against the most threatening group of enemy launchers, where it is heading
+        int force = EnemyForce.mostThreatening(rc, rc.getLocation(), rc.getRoundNum());
+        if (force != -1) {
+            bindTo = EnemyForce.predictedLocation(rc, force, rc.getRoundNum());
+            state = 1;
+            return;
+        }
         if (MemoryCache.sizeBySec(rc, MemorySection.COMBAT) >= 1) {
             ArrayList<Integer> combatLocs = MemoryCache.readBySection(rc, MemorySection.COMBAT);
             int combatLoc = combatLocs.get(random.nextInt(combatLocs.size()));
@@ -42,11 +56,14 @@ public class Launcher extends Robot {
 
         // try to attack someone until can't
         while (true) {
-            RobotInfo[] enemyLocation = rc.senseNearbyRobots(-1, rc.getTeam().opponent());
+            RobotInfo[] enemyLocation = sensing.enemies();
             boolean attacked = false;
             for (RobotInfo enemy : enemyLocation) {
                 if (rc.canAttack(enemy.location)) {
                     rc.attack(enemy.location);
+                    if (Debug.ON) telemetry.debug_attack(enemy.type);
+                    // the enemy may be destroyed
+                    sensing.invalidate();
                     attacked = true;
                     break;
                 }
@@ -56,12 +73,10 @@ public class Launcher extends Robot {
             }
         }
 
-        MemoryCache.writeBackLocs(rc);
         switch (state) {
             case 0:
-                rc.setIndicatorString("initial state");
-                // 40 percent to move to a combat area
-                if (random.nextFloat() < 0.4) {
+                if (Debug.ON) rc.setIndicatorString("initial state");
+                if (random.nextFloat() < Params.LAUNCHER_FOLLOW_COMBAT) {
                     followCombatArea = true;
                 }
 
@@ -69,7 +84,7 @@ public class Launcher extends Robot {
 
                 float randNum = random.nextFloat();
                 boolean occupied = false; // see if the launcher have something to do
-                if (randNum < 0.2) {
+                if (randNum < Params.LAUNCHER_DEFEND_HQ) {
                     List<Integer> headquarters = MemorySection.HQ.readSection(rc);
                     if (headquarters.size() > 0) {
                         bindTo =
@@ -77,7 +92,7 @@ public class Launcher extends Robot {
                         state = 1;
                         occupied = true;
                     }
-                } else if (randNum < 0.55) {
+                } else if (randNum < Params.LAUNCHER_DEFEND_HQ + Params.LAUNCHER_ATTACK_HQ) {
 
                     List<Integer> enemyHQs = MemorySection.ENEMY_HQ.readSection(rc);
 
@@ -90,11 +105,13 @@ public class Launcher extends Robot {
 
                     }
 
-                } else if (randNum < 0.9) {
-                    List<Integer> skyIsland = MemorySection.SKY_ISLAND.readSection(rc);
-                    if (skyIsland.size() > 0) {
-                        bindTo = MemoryAddress.toLocation(skyIsland.get(Math.abs(random.nextInt()) % skyIsland.size()));
-                        state = 1;
+                } else if (randNum < Params.LAUNCHER_DEFEND_HQ + Params.LAUNCHER_ATTACK_HQ + Params.LAUNCHER_ISLAND) {
+                    // defend or recapture an island as scheduled by the occupation status in shared memory
+                    MapLocation island = islandScheduler.assign(rc);
+                    if (island != null) {
+                        bindTo = island;
+                        missionRound = rc.getRoundNum();
+                        state = 6;
                         occupied = true;
                     }
                 }
@@ -105,7 +122,7 @@ public class Launcher extends Robot {
             case 4:
                 // explore randomly
                 tryMoveToCombatArea();
-                rc.setIndicatorString("exploring randomly");
+                if (Debug.ON) rc.setIndicatorString("exploring randomly");
                 randomMove();
                 break;
             case 5:
@@ -120,8 +137,9 @@ public class Launcher extends Robot {
                 }
 
                 if (symmetries.size() == 0) {
-                    bindTo = random.getRandLoc(rc);
-                    rc.setIndicatorString("moving to randomly assigned location " + bindTo);
+                    int target = EnemyForce.mostThreatening(rc, rc.getLocation(), rc.getRoundNum());
+                    bindTo = (target != -1) ? EnemyForce.predictedLocation(rc, target, rc.getRoundNum()) : random.getRandLoc(rc);
+                    if (Debug.ON) rc.setIndicatorString("moving to randomly assigned location " + bindTo);
                     moveToward(bindTo);
                     tryMoveToCombatArea();
                     if (Map.diagonalDist(rc.getLocation(), bindTo) < 3) {
@@ -145,14 +163,14 @@ public class Launcher extends Robot {
 
                 break;
             case 1:
-                rc.setIndicatorString("Targeting to " + bindTo.x + ", " + bindTo.y);
+                if (Debug.ON) rc.setIndicatorString("Targeting to " + bindTo.x + ", " + bindTo.y);
                 if (rc.canSenseLocation(bindTo)) {
-                    RobotInfo robot = rc.senseRobotAtLocation(bindTo);
+                    RobotInfo robot = sensing.robotAt(bindTo);
                     if (robot != null && robot.getType() == RobotType.HEADQUARTERS && robot.getTeam() == rc.getTeam().opponent()) {
                         state = 2;
                     } else if (symmetryUsed != -1) {
                         // this symmetry is invalid
-                        MemoryCache.invalidSymmetry = symmetryUsed;
+                        outbox.postFlag(1 << (14 - symmetryUsed), rc.getRoundNum());
                         symmetryUsed = -1;
                         state = 0;
                     } else {
@@ -165,19 +183,25 @@ public class Launcher extends Robot {
                 break;
             case 3:
                 // if cannot see the target position, move toward it
-                rc.setIndicatorString("moving toward " + bindTo + " with kept in sight");
+                if (Debug.ON) rc.setIndicatorString("moving toward " + bindTo + " with kept in sight");
 
                 // if reached combat area, but this position is updated to be not combat area, move to random position
                 ArrayList<Integer> combatLocs = MemoryCache.readBySection(rc, MemorySection.COMBAT);
                 boolean nearCombat = false;
                 for (int encoded : combatLocs) {
-                    MapLocation combatLoc = MemoryAddress.toLocation(encoded);
-                    if (Map.diagonalDist(rc.getLocation(), combatLoc) < 3) {
+                    if (Loc.diagonalDist(encoded, rc.getLocation()) < 3) {
                         nearCombat = true;
                         break;
                     }
                 }
 
+                for (int i = 0; i < EnemyForce.size() && !nearCombat; i++) {
+                    if (EnemyForce.isLive(rc, i, rc.getRoundNum()) &&
+                            Map.diagonalDist(rc.getLocation(), EnemyForce.location(rc, i)) < 3) {
+                        nearCombat = true;
+                    }
+                }
+
                 if (!nearCombat) {
                     followCombatArea = false;
                     state = 0;
@@ -198,16 +222,39 @@ public class Launcher extends Robot {
 
                 }
                 break;
+            case 6:
+                // holding an island for a defend or recapture mission
+                int islandID = islandScheduler.getIslandID();
+                if (rc.getRoundNum() - missionRound > IslandScheduler.MISSION_TIMEOUT) {
+                    islandScheduler.clear();
+                    state = 0;
+                    break;
+                }
+                if (islands.tileCount(islandID) > 0) {
+                    bindTo = islands.nearestTile(islandID, rc.getLocation());
+                }
+                if (sensing.ownIsland() != islandID) {
+                    if (Debug.ON) rc.setIndicatorString("island mission " + islandScheduler.getMission() + " to " + bindTo);
+                    moveToward(bindTo);
+                    break;
+                }
+                if (Debug.ON) rc.setIndicatorString("holding island " + islandID);
+                if (islandScheduler.getMission() == IslandScheduler.MISSION_RECAPTURE &&
+                        sensing.islandOwner(islandID) == Team.NEUTRAL) {
+                    // the enemy anchor is gone, ask for an anchor to claim the island
+                    IslandScheduler.requestAnchor(outbox, rc.getRoundNum());
+                }
+                break;
             case 2:
                 // TODO (extra launcher blocking the map)
-                rc.setIndicatorString("staying the fixed pos");
+                if (Debug.ON) rc.setIndicatorString("staying the fixed pos");
                 MapLocation location = rc.getLocation();
-                rc.setIndicatorString("Staying at position " + location);
+                if (Debug.ON) rc.setIndicatorString("Staying at position " + location);
                 // because headquarter's action radius is 9, the launcher have to stay 9 distance away from headquarter
                 if (Map.sqEuclideanDist(bindTo, moveToward(bindTo, true, false)) > 9) {
                     moveToward(bindTo);
                 } else {
-                    Direction windDirection = rc.senseMapInfo(location).getCurrentDirection();
+                    Direction windDirection = sensing.ownMapInfo().getCurrentDirection();
                     if (windDirection != null && windDirection != Direction.CENTER && rc.canMove(windDirection.opposite())) {
                         rc.move(windDirection.opposite());
                     }
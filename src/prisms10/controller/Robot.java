@@ -1,13 +1,11 @@
 package prisms10.controller;
 
 import battlecode.common.*;
+import prisms10.TurnScheduler;
 import prisms10.memory.*;
+import prisms10.strategy.Params;
 import prisms10.util.*;
 
-import java.util.ArrayList;
-import java.util.Set;
-import java.util.function.Predicate;
-
 public class Robot {
 
     RobotController rc;
@@ -16,31 +14,106 @@ public class Robot {
 
     Robot(RobotController rc) {
         this.rc = rc;
-        random = new Randomness(rc.getID());
+        sensing = new Sensing(rc);
+        telemetry = new Telemetry(rc);
+        MemorySection.init(rc);
+        random = new Randomness(rc.getID(), rc.getRoundNum());
         gridWeight = new float[rc.getMapWidth()][rc.getMapHeight()];
+        islands = new IslandIndex(rc.getIslandCount());
+
+        // optional work done after the critical actions of each turn, as the bytecode budget allows
+        // scans take turns among the robots of a group, see DutyCycle
+        scheduler.register(TurnScheduler.PRIORITY_HIGH, 300, this::scanForEnemyHQ, () -> onScanDuty(0));
+        scheduler.register(TurnScheduler.PRIORITY_HIGH, 400, this::scanForCombat, () -> onScanDuty(1));
+        scheduler.register(TurnScheduler.PRIORITY_HIGH, 400, this::scanForEnemyForce, () -> onScanDuty(1));
+        scheduler.register(TurnScheduler.PRIORITY_NORMAL, 600, this::scanForWells, () -> onScanDuty(2));
+        scheduler.register(TurnScheduler.PRIORITY_NORMAL, 1000, this::scanForSkyIslands, () -> onScanDuty(3));
+        scheduler.register(TurnScheduler.PRIORITY_LOW, 700, this::scanTerrain);
+        scheduler.register(TurnScheduler.PRIORITY_NORMAL, 800, () -> outbox.flush(rc, random));
+        scheduler.register(TurnScheduler.PRIORITY_BACKGROUND, JOB_RESERVE, () -> jobs.runSlice(JOB_RESERVE));
     }
 
 
     MapLocation bindTo = null;                       // An important location (such as a well) that the robot is bound to
     int state;                                       // Current state of robot. Its meaning depends on the type of robot
     int stateCounter = 0;                            // Number of rounds the robot has been staying in current state
-    final int STATE_COUNTER_MAX = 450;
-    final int MIN_COMBAT_ENEMY = 3;                  // min enemy count to trigger combat mode
+    ProgressMonitor progress = new ProgressMonitor(); // detects when the robot is stuck on the way to its target
+    int navigator = NAV_GREEDY;                      // the navigation strategy used by moveToward
+    PathCache paths = new PathCache();               // paths of recent trips, replayed on the same trips later
+
+    // the trip the robot is currently on, see navigateTo
+    MapLocation tripDest = null;                     // destination of the trip, null if not on a trip
+    int tripKey;                                     // key of the trip in the path cache
+    int[] tripPath = new int[PathCache.MAX_LENGTH];  // packed tiles walked in this trip
+    int tripLength;                                  // number of tiles in tripPath, -1 if the trip is too long to cache
+    int[] followPath = null;                         // cached path being replayed, null if navigating live
+    int followCursor;                                // index of the current tile in followPath
+    static final int VALIDATE_AHEAD = 4;             // number of tiles ahead of a cached path checked for walls
+    MapLocation lastForce = null;                    // centroid of the enemy launchers seen last time
+    int lastForceRound;                              // round when lastForce was seen
+    static final int FORCE_HEADING_ROUNDS = 3;       // sightings this close in time give a heading
+    static final int FORCE_HEADING_DIST = 3;         // sightings farther apart are different clusters
     MapInfo[][] mapInfos = new MapInfo[GameConstants.MAP_MAX_WIDTH][GameConstants.MAP_MAX_HEIGHT];    // What the robot knows about the map
     int[][] passable = new int[GameConstants.MAP_MAX_WIDTH][GameConstants.MAP_MAX_HEIGHT];    // What the robot knows about the map (passable)
-    // 0 -> cannot pass, 1 can pass, -1 unknown
+    // 0 -> unknown, 1 can pass, -1 cannot pass
+    MapLocation terrainScannedAt = null;             // where scanTerrain last saw its whole vision, null if never
+    int[] cellSeen = new int[WallMap.CELLS * WallMap.CELLS];  // tiles seen in each cell of the wall summary
+    int[] cellWalls = new int[WallMap.CELLS * WallMap.CELLS]; // impassable tiles among them
     float[][] gridWeight = null;                     // assign a weight to each grid
-    RobotInfo[] nearbyRobots;
+    IslandIndex islands;                             // every sky island tile this robot has seen
+    Sensing sensing;                                 // sensing results memoized within a turn
+    Outbox outbox = new Outbox();                    // updates waiting to be written into shared memory
+    MapLocation home = null;                         // the headquarters this robot started from
+    int friendsInSight;                              // friendly robots in sight in this turn, headquarters excluded
+    boolean atFrontier;                              // whether nobody else in sight sees farther from home
+    TurnScheduler scheduler = new TurnScheduler();    // runs scans and other optional work within the bytecode limit
+    JobQueue jobs = new JobQueue();                  // expensive computations spread over several turns
+    Telemetry telemetry;                             // structured lines for offline analysis of matches
+    static final int JOB_RESERVE = 500;              // bytecodes left unused by background jobs at the end of a turn
+
+    // navigation strategies: greedy with a random rotation each turn, or following walls on a fixed side
+    static final int NAV_GREEDY = 0;
+    static final int NAV_FOLLOW_LEFT = 1;            // turn left around obstacles, keeping the wall on the right
+    static final int NAV_FOLLOW_RIGHT = 2;           // turn right around obstacles, keeping the wall on the left
+
+    // wall following, see followWall
+    MapLocation wallHit = null;                      // where the robot ran into the wall it follows, null if none
+    MapLocation wallDest = null;                     // destination the wall is followed for
+    int wallHitDist;                                 // distance from wallHit to wallDest
+    Direction wallDir;                               // direction from the robot toward the wall it follows
 
     void changeState(int newState) {
         state = newState;
         stateCounter = 0;
+        progress.reset();
+        navigator = NAV_GREEDY;
+        wallHit = null;
+        tripDest = null;
+        followPath = null;
+    }
+
+    /**
+     * Records the progress toward the target in this turn and switches the navigator if the robot is stuck.
+     * Recovery actions beyond switching the navigator depend on the job and are left to the caller.
+     *
+     * @return the recovery action to take, one of the constants in {@link ProgressMonitor}
+     */
+    int checkProgress(MapLocation target) {
+        int action = progress.update(rc.getLocation(), target);
+        if (action != ProgressMonitor.OK) {
+            // every escalation also tries another navigator
+            navigator = (navigator == NAV_FOLLOW_LEFT) ? NAV_FOLLOW_RIGHT : NAV_FOLLOW_LEFT;
+            wallHit = null;
+        }
+        return action;
     }
 
 
     /**
      * Run a single turn for a robot.
      * This code is wrapped inside the infinite loop in run(), so it is called once per turn.
+     * Subclasses call this first and then perform their critical actions; scans are run afterwards by
+     * {@link #runDeferred()}.
      */
     public void run() throws GameActionException {
         // scan nearby environment and record information to shared memory
@@ -55,13 +128,62 @@ public class Robot {
         // TODO: miners should consider their relative position to the well and make way for other miners
         // TODO: sense NEARBY combats every turn, pause job to help, and resume job after combat is over
 
-        nearbyRobots = rc.senseNearbyRobots();
+        if (Debug.ON) telemetry.debug_startTurn(state);
+        updateScanDensity();
 
-        scanForWells();
-        scanForSkyIslands();
+        // tasks deferred for too long run now, while the whole bytecode budget is available
+        scheduler.runStartOfTurn();
+    }
 
-        scanForCombat();
-        scanForEnemyHQ();
+    /**
+     * Counts the friendly robots in sight and checks whether this robot is at the frontier: an enemy is in sight, or
+     * no friendly robot in sight is farther from home.
+     */
+    void updateScanDensity() throws GameActionException {
+        if (home == null) {
+            home = nearestHeadquarters();
+        }
+        int myDist = (home == null) ? 0 : rc.getLocation().distanceSquaredTo(home);
+        friendsInSight = 0;
+        atFrontier = true;
+        boolean enemyInSight = false;
+        for (RobotInfo robot : sensing.robots()) {
+            if (robot.getTeam() != rc.getTeam()) {
+                enemyInSight = true;
+            } else if (robot.getType() != RobotType.HEADQUARTERS) {
+                friendsInSight++;
+                if (home != null && robot.getLocation().distanceSquaredTo(home) > myDist) {
+                    atFrontier = false;
+                }
+            }
+        }
+        atFrontier |= enemyInSight;
+    }
+
+    boolean onScanDuty(int channel) {
+        return DutyCycle.onDuty(rc.getID(), rc.getRoundNum(), channel, friendsInSight, atFrontier);
+    }
+
+    private MapLocation nearestHeadquarters() throws GameActionException {
+        MapLocation here = rc.getLocation();
+        int nearest = -1;
+        for (int i = MemorySection.HQ.getStartIdx(); i < MemorySection.HQ.getEndIdx(); i++) {
+            int read = rc.readSharedArray(i);
+            if (read == MemoryAddress.MASK_COORDS) continue;
+            if (nearest == -1 || Loc.sqEuclideanDist(read, here) < Loc.sqEuclideanDist(nearest, here)) {
+                nearest = read;
+            }
+        }
+        return (nearest == -1) ? null : Loc.toLocation(nearest);
+    }
+
+    /**
+     * Runs the optional tasks (scans and memory write back) with the bytecodes left in this turn.
+     * Called once per turn after {@link #run()}.
+     */
+    public void runDeferred() throws GameActionException {
+        scheduler.runDeferred();
+        if (Debug.ON) telemetry.debug_endTurn(state);
     }
 
 
@@ -75,22 +197,26 @@ public class Robot {
      */
     MapLocation moveToward(MapLocation destination, boolean toward, boolean performMove) throws GameActionException {
         // rc.setIndicatorString("moving toward " + destination);
-        // TODO: avoid obstacles
+        if (navigator != NAV_GREEDY && toward && performMove) {
+            followWall(destination);
+            return rc.getLocation();
+        }
         MapLocation myLocation = rc.getLocation();
-        boolean rotateDir = random.nextBoolean();  // when one cannot move toward one direction, whether to rotate left or
-        // right
+        // when one cannot move toward one direction, whether to rotate left or right
+        boolean rotateDir = random.nextBoolean();
+        int maxTries = 6;
         while (rc.isMovementReady() && (myLocation.x != destination.x || myLocation.y != destination.y)) {
             Direction direction = Map.directionTo(myLocation, destination);
             if (!toward) {
                 direction = direction.opposite();
             }
             boolean canMove = false;
-            for (int i = 0; i < 6; i++) {
+            for (int i = 0; i < maxTries; i++) {
                 // search either clockwise or counterclockwise for the first direction the bot can move to
                 // search for at most 8 rounds
                 if (rc.canMove(direction)) {
                     if (performMove) {
-                        rc.move(direction);
+                        step(direction);
                     }
                     myLocation = myLocation.add(direction);
                     canMove = true;
@@ -109,37 +235,212 @@ public class Robot {
         moveToward(dest, true, true);
     }
 
+    /**
+     * Moves toward a destination with the bug algorithm: head straight for the destination until blocked, then keep a
+     * hand on the blocking wall (on the side given by the navigator) and walk along it, until the way toward the
+     * destination is free at a point closer to it than where the wall was hit.
+     */
+    private void followWall(MapLocation destination) throws GameActionException {
+        boolean turnLeft = (navigator == NAV_FOLLOW_LEFT);
+        if (!destination.equals(wallDest)) {
+            wallHit = null;
+            wallDest = destination;
+        }
+        MapLocation myLocation = rc.getLocation();
+        while (rc.isMovementReady() && !myLocation.equals(destination)) {
+            Direction straight = myLocation.directionTo(destination);
+            if (wallHit != null && rc.canMove(straight) &&
+                    Map.diagonalDist(myLocation, destination) < wallHitDist) {
+                // past the obstacle: the wall can be let go
+                wallHit = null;
+            }
+            if (wallHit == null) {
+                if (rc.canMove(straight)) {
+                    step(straight);
+                    myLocation = rc.getLocation();
+                    continue;
+                }
+                // blocked: this is the wall to follow
+                wallHit = myLocation;
+                wallHitDist = Map.diagonalDist(myLocation, destination);
+                wallDir = straight;
+            }
+            // turn away from the wall until a free direction is found
+            Direction dir = wallDir;
+            boolean moved = false;
+            for (int i = 0; i < 8; i++) {
+                if (rc.canMove(dir)) {
+                    step(dir);
+                    // the wall was last felt on this side, so reach for it again from there
+                    wallDir = turnLeft ? dir.rotateRight().rotateRight() : dir.rotateLeft().rotateLeft();
+                    moved = true;
+                    break;
+                }
+                dir = turnLeft ? dir.rotateLeft() : dir.rotateRight();
+            }
+            if (!moved) {
+                break;
+            }
+            myLocation = rc.getLocation();
+        }
+    }
+
+    /**
+     * Moves in a direction, recording the tile reached if the robot is on a trip, so that a path walked in several steps
+     * per turn stays contiguous.
+     */
+    private void step(Direction direction) throws GameActionException {
+        rc.move(direction);
+        if (tripDest != null) {
+            recordTrip(rc.getLocation());
+        }
+    }
+
+    /**
+     * Moves on a trip to a destination, as many steps as the robot can take in this turn. If the robot walked the same trip (from the same region to the same
+     * destination) before, the cached path is replayed; otherwise, or if the cached path is blocked, the robot navigates
+     * live with {@link #moveToward(MapLocation)}. The tiles walked are recorded, and cached once
+     * {@link #finishTrip(MapLocation)} is called.
+     *
+     * @param dest       destination of the trip
+     * @param liveTarget location to head to when navigating live, such as a waypoint on the way to {@code dest}
+     */
+    void navigateTo(MapLocation dest, MapLocation liveTarget) throws GameActionException {
+        MapLocation myLocation = rc.getLocation();
+        if (!dest.equals(tripDest)) {
+            // a new trip starts here
+            tripDest = dest;
+            tripKey = PathCache.key(myLocation, dest);
+            tripLength = 0;
+            recordTrip(myLocation);
+            followPath = paths.get(tripKey, rc.getRoundNum());
+            followCursor = 0;
+        }
+        if (followPath != null && !followCachedPath()) {
+            // blocked or pushed off the cached path, navigate live from here on
+            followPath = null;
+        }
+        if (followPath == null) {
+            moveToward(liveTarget);
+        }
+        recordTrip(rc.getLocation());
+    }
+
+    /**
+     * Ends the trip to a destination and caches the path walked.
+     */
+    void finishTrip(MapLocation dest) {
+        if (dest.equals(tripDest) && tripLength > 0) {
+            paths.put(tripKey, tripPath, tripLength, rc.getRoundNum());
+        }
+        tripDest = null;
+        followPath = null;
+    }
+
+    /**
+     * Walks along the cached path of the current trip as long as the robot can move in this turn, checking each tile
+     * before stepping on it.
+     *
+     * @return {@code false} if the robot is off the path, the path is blocked, or it ends short of the destination
+     */
+    private boolean followCachedPath() throws GameActionException {
+        MapLocation myLocation = rc.getLocation();
+        int me = (myLocation.x << 6) | myLocation.y;
+        // find the current position on the path, allowing for being carried a few tiles ahead by currents
+        int last = followPath.length - 1;
+        int cursor = -1;
+        for (int i = followCursor; i <= Math.min(last, followCursor + 3); i++) {
+            if (followPath[i] == me) {
+                cursor = i;
+                break;
+            }
+        }
+        if (cursor == -1) {
+            return false;
+        }
+        followCursor = cursor;
+        // check the tiles ahead against what the robot can sense now, then each tile coming into that window
+        int checked = cursor;
+        while (true) {
+            if (followCursor == last) {
+                // the path ends short of where the robot has to be, finish the trip live
+                return false;
+            }
+            if (!rc.isMovementReady()) {
+                return true;
+            }
+            for (int i = checked + 1; i <= Math.min(last, followCursor + VALIDATE_AHEAD); i++) {
+                MapLocation ahead = new MapLocation(followPath[i] >> 6, followPath[i] & 0x3F);
+                if (rc.canSenseLocation(ahead) && !rc.sensePassability(ahead)) {
+                    paths.remove(tripKey);
+                    return false;
+                }
+                checked = i;
+            }
+            MapLocation next = new MapLocation(followPath[followCursor + 1] >> 6, followPath[followCursor + 1] & 0x3F);
+            Direction direction = myLocation.directionTo(next);
+            if (!myLocation.isAdjacentTo(next) || !rc.canMove(direction)) {
+                // occupied by another robot
+                return false;
+            }
+            step(direction);
+            followCursor++;
+            myLocation = next;
+        }
+    }
+
+    /**
+     * Appends a tile to the path of the current trip, cutting out any loop back to a recent tile.
+     */
+    private void recordTrip(MapLocation loc) {
+        if (tripLength < 0) {
+            return;
+        }
+        int packed = (loc.x << 6) | loc.y;
+        for (int i = tripLength - 1; i >= Math.max(0, tripLength - 16); i--) {
+            if (tripPath[i] == packed) {
+                tripLength = i + 1;
+                return;
+            }
+        }
+        if (tripLength == PathCache.MAX_LENGTH) {
+            tripLength = -1;
+            return;
+        }
+        tripPath[tripLength++] = packed;
+    }
+
     void randomMove() throws GameActionException {
         MapLocation curLoc = rc.getLocation();
-        Predicate<Integer> hqFilter = (hqPos) -> (Map.sqEuclideanDist(MemoryAddress.toLocation(hqPos), curLoc) <= GridWeight.HQ_MAX_RADIUS);
-        Predicate<Integer> wellFilter = (wellPos) -> (Map.sqEuclideanDist(MemoryAddress.toLocation(wellPos), curLoc) <= GridWeight.WELL_MAX_RADIUS);
         // only scan for places (headquarters and wells) that are within its max radius, which may affect the grid weight
-        ArrayList<Integer> myHeadquarters = MemorySection.HQ.readSection(rc, hqFilter);
-        ArrayList<Integer> enemyHeadquarters = MemorySection.ENEMY_HQ.readSection(rc, hqFilter);
-        ArrayList<Integer> wells = MemorySection.WELL.readSection(rc, wellFilter);
+        int[] myHeadquarters = new int[MemorySection.HQ.getEndIdx() - MemorySection.HQ.getStartIdx()];
+        int numMyHQs = readNearby(MemorySection.HQ, curLoc, GridWeight.HQ_MAX_RADIUS, myHeadquarters);
+        int[] enemyHeadquarters = new int[MemorySection.ENEMY_HQ.getEndIdx() - MemorySection.ENEMY_HQ.getStartIdx()];
+        int numEnemyHQs = readNearby(MemorySection.ENEMY_HQ, curLoc, GridWeight.HQ_MAX_RADIUS, enemyHeadquarters);
+        int[] wells = new int[MemorySection.WELL.getEndIdx() - MemorySection.WELL.getStartIdx()];
+        int numWells = readNearby(MemorySection.WELL, curLoc, GridWeight.WELL_MAX_RADIUS, wells);
         // calculate each point's grid weight around current location
         int[] nearbyGrid = new int[Direction.values().length];
         boolean canMove = false;
         for (int i = 0; i < Direction.values().length - 1; i++) {
             // calculate grid weight of this point
-            MapLocation afterMove = curLoc.add(Direction.values()[i]);
-            if (!rc.canMove(Direction.values()[i])) {
+            Direction dir = Direction.values()[i];
+            if (!rc.canMove(dir)) {
                 nearbyGrid[i] = 0;
                 continue;
             }
+            int x = curLoc.x + dir.getDeltaX();
+            int y = curLoc.y + dir.getDeltaY();
             canMove = true;
             nearbyGrid[i] = GridWeight.INITIAL;
-            for (Integer myHQ : myHeadquarters) {
-                MapLocation myHQLoc = MemoryAddress.toLocation(myHQ);
-                nearbyGrid[i] -= Math.max(0, GridWeight.HQ - Map.sqEuclideanDist(afterMove, myHQLoc) * GridWeight.HQ_DECAY);
+            for (int j = 0; j < numMyHQs; j++) {
+                nearbyGrid[i] -= Math.max(0, GridWeight.HQ - Loc.sqEuclideanDist(myHeadquarters[j], x, y) * GridWeight.HQ_DECAY);
             }
-            for (Integer enemyHQ : enemyHeadquarters) {
-                MapLocation enemyHQLoc = MemoryAddress.toLocation(enemyHQ);
-                nearbyGrid[i] += Math.max(0, GridWeight.HQ - Map.sqEuclideanDist(afterMove, enemyHQLoc) * GridWeight.HQ_DECAY);
+            for (int j = 0; j < numEnemyHQs; j++) {
+                nearbyGrid[i] += Math.max(0, GridWeight.HQ - Loc.sqEuclideanDist(enemyHeadquarters[j], x, y) * GridWeight.HQ_DECAY);
             }
-            for (Integer well : wells) {
-                MapLocation wellLoc = MemoryAddress.toLocation(well);
-                nearbyGrid[i] += Math.max(0, GridWeight.WELL - Map.sqEuclideanDist(afterMove, wellLoc) * GridWeight.WELL_DECAY);
+            for (int j = 0; j < numWells; j++) {
+                nearbyGrid[i] += Math.max(0, GridWeight.WELL - Loc.sqEuclideanDist(wells[j], x, y) * GridWeight.WELL_DECAY);
             }
 
         }
@@ -150,38 +451,117 @@ public class Robot {
         rc.move(randSel);
     }
 
-
     /**
-     * Scan for nearby wells and write their locations to shared memory
+     * Reads the locations recorded in a section within a squared distance of a location.
+     *
+     * @param result array to store the packed locations in, as long as the section
+     * @return the number of locations stored
      */
-    void scanForWells() throws GameActionException {
-        int currentRound = rc.getRoundNum();
+    private int readNearby(MemorySection section, MapLocation center, int radiusSq, int[] result)
+            throws GameActionException {
+        int size = 0;
+        for (int i = section.getStartIdx(); i < section.getEndIdx(); i++) {
+            int read = rc.readSharedArray(i);
+            if (read != MemoryAddress.MASK_COORDS && Loc.sqEuclideanDist(read, center) <= radiusSq) {
+                result[size++] = read;
+            }
+        }
+        return size;
+    }
 
-        for (WellInfo well : rc.senseNearbyWells()) {
 
-            int address = MemoryAddress.fromResourceLocation(well.getResourceType(), well.getMapLocation(), currentRound);
+    /**
+     * Scan for nearby tiles and record whether they are passable. After a single step from the last scan, only the
+     * tiles that came into sight are sensed: with the tables of {@link Offsets}, an offset is new after a step in
+     * direction {@code d} if its neighbour in direction {@code d} is outside the vision radius.
+     */
+    void scanTerrain() throws GameActionException {
+        MapLocation here = rc.getLocation();
+        if (here.equals(terrainScannedAt)) {
+            return;
+        }
+        int radiusSq = rc.getType().visionRadiusSquared;
+        int[] neighbors = Offsets.neighbors(radiusSq);
+        // a robot in a cloud sees less, so its scan cannot be extended later
+        boolean clear = !sensing.ownMapInfo().hasCloud();
+        if (clear && neighbors != null && terrainScannedAt != null && terrainScannedAt.isAdjacentTo(here)) {
+            int d = terrainScannedAt.directionTo(here).ordinal();
+            int[] dx = Offsets.dx(radiusSq), dy = Offsets.dy(radiusSq);
+            int width = rc.getMapWidth(), height = rc.getMapHeight();
+            for (int i = dx.length; --i >= 0; ) {
+                if (neighbors[8 * i + d] != -1) continue;    // in sight before the step
+                int x = here.x + dx[i], y = here.y + dy[i];
+                if (x < 0 || y < 0 || x >= width || y >= height || passable[x][y] != 0) continue;
+                learnTile(x, y, rc.sensePassability(new MapLocation(x, y)));
+            }
+        } else {
+            for (MapInfo info : sensing.mapInfos()) {
+                MapLocation loc = info.getMapLocation();
+                if (passable[loc.x][loc.y] == 0) {
+                    learnTile(loc.x, loc.y, info.isPassable());
+                }
+            }
+        }
+        terrainScannedAt = clear ? here : null;
+    }
+
+    /**
+     * Records a tile seen for the first time, and reports its cell of the wall summary once the whole cell is seen and
+     * found blocked, see {@link WallMap}.
+     */
+    private void learnTile(int x, int y, boolean isPassable) {
+        passable[x][y] = isPassable ? 1 : -1;
+        int width = rc.getMapWidth(), height = rc.getMapHeight();
+        int cell = WallMap.cellOf(x, y, width, height);
+        if (!isPassable) {
+            cellWalls[cell]++;
+        }
+        int tiles = WallMap.cellTiles(cell, width, height);
+        if (++cellSeen[cell] == tiles && WallMap.isBlocked(cellWalls[cell], tiles)) {
+            outbox.postWall(cell, rc.getRoundNum());
+        }
+    }
 
-            boolean toWrite = true;
-            for (int i = MemorySection.IDX_WELL; i < MemorySection.IDX_HQ; i++) {
-                int memoryIth = rc.readSharedArray(i);
-                if ((address & MemoryAddress.MASK_COORDS) == (memoryIth & MemoryAddress.MASK_COORDS) &&
-                        (address & MemoryAddress.MASK_TIMESTAMP) <= (memoryIth & MemoryAddress.MASK_TIMESTAMP)) {
-                    toWrite = false;
+    /**
+     * Scan for nearby wells, write the locations of new wells to shared memory and refresh the timestamps of known ones
+     */
+    void scanForWells() throws GameActionException {
+        final int round = rc.getRoundNum();
+        final int tick = Timestamp.tick(round);
+        final int start = MemorySection.WELL.getStartIdx();
+
+        for (WellInfo well : sensing.wells()) {
+
+            int address = MemoryAddress.fromResourceLocation(well.getResourceType(), well.getMapLocation());
+
+            int found = -1;
+            boolean converted = false;
+            boolean full = true;
+            for (int i = start; i < MemorySection.WELL.getEndIdx(); i++) {
+                int read = rc.readSharedArray(i);
+                if ((read & MemoryAddress.MASK_COORDS) == (address & MemoryAddress.MASK_COORDS)) {
+                    found = i - start;
+                    converted = read != address;
                     break;
                 }
+                if (read == MemoryAddress.MASK_COORDS) {
+                    full = false;
+                }
             }
 
-            if (toWrite) {
-                Set<Integer> wells = MemoryCache.locsToWrite.get(MemorySection.WELL);
-                assert wells != null : "locationsToWrite should be initialized in static block";
-                wells.add(address);
+            if ((found == -1 && !full) || converted) {
+                // a new well while there is room for it, or a well converted to elixir
+                outbox.postAdd(MemorySection.WELL, address, Outbox.PRIORITY_NORMAL, round);
+            } else if (found < MemorySection.WELL_STAMP.size() &&
+                    Timestamp.isNewer(tick, MemorySection.WELL_STAMP.readEntry(rc, found))) {
+                outbox.postWellStamp(well.getMapLocation(), round);
             }
 
         }
 
     }
 
-    private void scanForEnemyHQ() throws GameActionException {
+    void scanForEnemyHQ() throws GameActionException {
 
         // first check if all enemy headquarters are found
         boolean allFound = true;
@@ -193,96 +573,85 @@ public class Robot {
         }
         if (allFound) return;
 
-        for (RobotInfo robot : nearbyRobots) {
-            if (robot.getType() == RobotType.HEADQUARTERS && robot.getTeam() != rc.getTeam()) {
-                // make sure this is an enemy headquarters
+        // scans run after the robot moved and attacked, so sense at this point rather than at the start of the turn
+        for (RobotInfo robot : sensing.enemies()) {
+            if (robot.getType() == RobotType.HEADQUARTERS) {
                 int address = MemoryAddress.fromLocation(robot.getLocation());
 
                 if (MemorySection.ENEMY_HQ.contains(rc, address) == -1) {
-                    Set<Integer> enemyHeadquarters = MemoryCache.locsToWrite.get(MemorySection.ENEMY_HQ);
-                    assert enemyHeadquarters != null : "locationsToWrite should be initialized in static block";
-                    enemyHeadquarters.add(address);
+                    outbox.postAdd(MemorySection.ENEMY_HQ, address, Outbox.PRIORITY_URGENT, rc.getRoundNum());
                 }
             }
         }
 
     }
 
-    private void scanForSkyIslands() throws GameActionException {
-
-        int curTimestamp = MemoryAddress.fromNumRounds(rc.getRoundNum());
-
-        for (int islandID : rc.senseNearbyIslands()) {
-
-            final int index = islandID + MemorySection.SKY_ISLAND.getStartIdx();
-            final int islandMemoryAddress = rc.readSharedArray(index);
-            final int occupationStatus = MemoryAddress.fromOccupationStatus(rc.senseTeamOccupyingIsland(islandID), rc.getTeam());
+    void scanForSkyIslands() throws GameActionException {
 
-            if (MemoryAddress.isInitial(islandMemoryAddress) || (islandMemoryAddress & MemoryAddress.MASK_TIMESTAMP) < curTimestamp) {
-                // memory is empty, write the location of the island
-                MapLocation locationToWrite = new MapLocation(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        final int round = rc.getRoundNum();
 
-                // find the bottom left corner of the island
-                for (MapLocation islandLocation : rc.senseNearbyIslandLocations(islandID)) {
-                    if (islandLocation.compareTo(locationToWrite) < 0) {
-                        locationToWrite = islandLocation;
-                    }
-                }
-
-                // TODO: 存入 cache
-                final int newMemoryAddress = curTimestamp | occupationStatus | MemoryAddress.fromLocation(locationToWrite);
-                if (rc.canWriteSharedArray(index, newMemoryAddress)) {
-                    rc.writeSharedArray(index, newMemoryAddress);
-                }
+        for (int islandID : sensing.islands()) {
 
-            } else {
-                // already recorded the location, update the occupation status
-                int newMemoryAddress = curTimestamp | occupationStatus | MemoryAddress.extractCoords(islandMemoryAddress);
+            final int occupationStatus = IslandMemory.statusOf(sensing.islandOwner(islandID), rc.getTeam());
 
-                // TODO: 分类讨论直接写入还是存到 cache 里
-                if (newMemoryAddress != islandMemoryAddress && rc.canWriteSharedArray(index, newMemoryAddress)) {
-                    rc.writeSharedArray(index, newMemoryAddress);
-                }
+            // record every visible tile of the island into the local index
+            islands.record(islandID, sensing.islandLocations(islandID));
 
-            }
+            // use the known tile closest to the centroid of the island as its shared location
+            outbox.postIsland(islandID, islands.representative(islandID), occupationStatus, round);
 
         }
 
     }
 
     public void scanForCombat() throws GameActionException {
-        if (getEnemCnt() < MIN_COMBAT_ENEMY) {
+        int address = MemoryAddress.fromLocation(rc.getLocation());
+        if (getEnemCnt() < Params.MIN_COMBAT_ENEMY) {
             // if not in combat, check if this location is reported to be in combat in sh mem
-            int curLoc = MemorySection.COMBAT.contains(rc, MemoryAddress.fromLocation(rc.getLocation()));
-            if (curLoc != -1 && rc.canWriteSharedArray(curLoc, MemoryAddress.MASK_COORDS)) {
+            if (MemorySection.COMBAT.contains(rc, address) != -1) {
                 // if this location is reported to be in combat, clear the record
-                rc.writeSharedArray(curLoc, MemoryAddress.MASK_COORDS);
+                outbox.postClear(MemorySection.COMBAT, address, Outbox.PRIORITY_URGENT, rc.getRoundNum());
             }
             return;
         }
 
-        if (MemorySection.COMBAT.contains(rc, MemoryAddress.fromLocation(rc.getLocation())) == 1) {
+        if (MemorySection.COMBAT.contains(rc, address) != -1) {
             return;
         }
-        // do not use cache for this, because info in cache is not updated
-        int writePos = MemoryCache.firstEmpty(rc, MemorySection.COMBAT);
-        if (!(writePos != -1 && rc.canWriteSharedArray(writePos, MemoryAddress.fromLocation(rc.getLocation())))) {
-            writePos = MemorySection.COMBAT.getRandIdx();
+        outbox.postAdd(MemorySection.COMBAT, address, Outbox.PRIORITY_URGENT, rc.getRoundNum());
+    }
+
+    /**
+     * Reports the enemy launchers in sight as a cluster, see {@link EnemyForce}. The heading is estimated from the
+     * cluster this robot saw in the previous turns.
+     */
+    void scanForEnemyForce() throws GameActionException {
+        int count = 0, sumX = 0, sumY = 0;
+        for (RobotInfo robot : sensing.enemies()) {
+            if (robot.getType() == RobotType.LAUNCHER) {
+                count++;
+                sumX += robot.getLocation().x;
+                sumY += robot.getLocation().y;
+            }
+        }
+        if (count == 0) {
+            return;
         }
-        if (rc.canWriteSharedArray(writePos, MemoryAddress.fromLocation(rc.getLocation()))) {
-            rc.writeSharedArray(writePos, MemoryAddress.fromLocation(rc.getLocation()));
+        final int round = rc.getRoundNum();
+        MapLocation centroid = new MapLocation(sumX / count, sumY / count);
+        Direction heading = Direction.CENTER;
+        if (lastForce != null && round - lastForceRound <= FORCE_HEADING_ROUNDS && !lastForce.equals(centroid) &&
+                Map.diagonalDist(lastForce, centroid) <= FORCE_HEADING_DIST) {
+            heading = lastForce.directionTo(centroid);
         }
+        outbox.postEnemyForce(centroid, count, heading, round);
+        lastForce = centroid;
+        lastForceRound = round;
     }
 
     public int getEnemCnt() {
         // need to have more than 5 enemies nearby
-        int numEnemies = 0;
-        for (RobotInfo robot : nearbyRobots) {
-            if (robot.getTeam() != rc.getTeam()) {
-                numEnemies++;
-            }
-        }
-        return numEnemies;
+        return sensing.enemies().length;
     }
 
 
@@ -0,0 +1,66 @@
+package prisms10.memory;
+
+import battlecode.common.Direction;
+import battlecode.common.GameActionException;
+import battlecode.common.RobotController;
+
+/**
+ * Reads and writes the compressed distance fields of the headquarters in shared memory.
+ * <p>
+ * A field holds one next-hop direction (3 bits, the index in {@code Direction.values()}) for each of the 25 sectors
+ * of the map, in a block of {@link #WORDS} words of {@link MemorySection#HQ_FIELD}. Each word holds 5 sectors in its
+ * lower 15 bits, and the highest bit of a word is set once the field is published. The block of the headquarters
+ * recorded in the {@code i}-th entry of {@link MemorySection#HQ} starts at word {@code i * WORDS} of the section, if the
+ * section is large enough on the current map.
+ */
+public class DistanceField {
+
+    public static final int WORDS = 5;               // number of words in the field of one headquarters
+    static final int SECTORS_PER_WORD = 5;
+    static final int MASK_PUBLISHED = 0x8000;
+
+    /**
+     * Whether there is space for the field of the headquarters with the given index.
+     */
+    public static boolean hasBlock(int hqIndex) {
+        return hqIndex >= 0 && (hqIndex + 1) * WORDS <= MemorySection.HQ_FIELD.size();
+    }
+
+    /**
+     * Writes the next hop of each sector into shared memory.
+     *
+     * @param hqIndex  index of the headquarters in {@link MemorySection#HQ}
+     * @param nextHops direction index of each sector, see {@link prisms10.util.DistanceFieldJob#getNextHops()}
+     * @return {@code true} if the field is written
+     */
+    public static boolean publish(RobotController rc, int hqIndex, int[] nextHops) throws GameActionException {
+        int start = MemorySection.HQ_FIELD.getStartIdx() + hqIndex * WORDS;
+        for (int i = 0; i < WORDS; i++) {
+            int word = MASK_PUBLISHED;
+            for (int j = 0; j < SECTORS_PER_WORD; j++) {
+                word |= nextHops[i * SECTORS_PER_WORD + j] << (3 * j);
+            }
+            if (!rc.canWriteSharedArray(start + i, word)) {
+                return false;
+            }
+            rc.writeSharedArray(start + i, word);
+        }
+        return true;
+    }
+
+    public static boolean isPublished(RobotController rc, int hqIndex) throws GameActionException {
+        if (!hasBlock(hqIndex)) {
+            return false;
+        }
+        return (rc.readSharedArray(MemorySection.HQ_FIELD.getStartIdx() + hqIndex * WORDS) & MASK_PUBLISHED) != 0;
+    }
+
+    /**
+     * Returns the direction to go from a sector to get closer to a headquarters.
+     */
+    public static Direction nextHop(RobotController rc, int hqIndex, int sector) throws GameActionException {
+        int word = rc.readSharedArray(MemorySection.HQ_FIELD.getStartIdx() + hqIndex * WORDS + sector / SECTORS_PER_WORD);
+        return Direction.values()[(word >> (3 * (sector % SECTORS_PER_WORD))) & 0x7];
+    }
+
+}
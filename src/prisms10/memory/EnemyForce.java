@@ -0,0 +1,162 @@
+package prisms10.memory;
+
+import battlecode.common.Direction;
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import prisms10.util.Map;
+
+/**
+ * Clusters of enemy launchers seen by our robots, kept in {@link MemorySection#ENEMY_FORCE}.
+ * <p>
+ * Each cluster takes two words: {@code NNNN XXXX XXYY YYYY}, where {@code N} is the estimated number of launchers
+ * (saturating at 15) and {@code X}, {@code Y} the location of their centroid, followed by {@code ____ ____ CCCC HHHH},
+ * where {@code H} is the heading (index in {@code Direction.values()}) and {@code C} the {@link Timestamp} of the last
+ * sighting. A cluster is empty if its location is all 1s. Sightings close to a cluster are merged into it, and clusters
+ * not seen for {@link #DECAY_ROUNDS} rounds are cleared by the headquarters.
+ */
+public class EnemyForce {
+
+    public static final int WORDS = 2;               // words per cluster
+    public static final int MAX_CLUSTERS = 4;
+    public static final int DECAY_ROUNDS = 40;       // clusters not seen for this many rounds are dropped
+    static final int MERGE_DIST = 5;                 // sightings within this diagonal distance belong to the same cluster
+    static final int MAX_COUNT = 15;
+    static final int ROUNDS_PER_TILE = 4;            // rough speed of a launcher group, used for predictions
+    static final int MAX_PREDICT = 4;                // tiles a prediction may move a cluster
+
+    public static int size() {
+        return MemorySection.ENEMY_FORCE.size() / WORDS;
+    }
+
+    private static int index(int cluster) {
+        return MemorySection.ENEMY_FORCE.getStartIdx() + cluster * WORDS;
+    }
+
+    public static boolean isEmpty(RobotController rc, int cluster) throws GameActionException {
+        return (rc.readSharedArray(index(cluster)) & MemoryAddress.MASK_COORDS) == MemoryAddress.MASK_COORDS;
+    }
+
+    /**
+     * Whether a cluster holds a sighting not older than {@link #DECAY_ROUNDS} rounds.
+     */
+    public static boolean isLive(RobotController rc, int cluster, int numRound) throws GameActionException {
+        return !isEmpty(rc, cluster) && Timestamp.isFresh(timestamp(rc, cluster), numRound, DECAY_ROUNDS);
+    }
+
+    public static MapLocation location(RobotController rc, int cluster) throws GameActionException {
+        return MemoryAddress.toLocation(rc.readSharedArray(index(cluster)));
+    }
+
+    public static int count(RobotController rc, int cluster) throws GameActionException {
+        return rc.readSharedArray(index(cluster)) >>> 12;
+    }
+
+    public static Direction heading(RobotController rc, int cluster) throws GameActionException {
+        return Direction.values()[rc.readSharedArray(index(cluster) + 1) & 0xF];
+    }
+
+    public static int timestamp(RobotController rc, int cluster) throws GameActionException {
+        return (rc.readSharedArray(index(cluster) + 1) >>> 4) & Timestamp.MASK;
+    }
+
+    /**
+     * Where a cluster probably is now, moving it along its heading for the rounds passed since it was seen.
+     */
+    public static MapLocation predictedLocation(RobotController rc, int cluster, int numRound) throws GameActionException {
+        MapLocation location = location(rc, cluster);
+        Direction heading = heading(rc, cluster);
+        if (heading == Direction.CENTER) {
+            return location;
+        }
+        int steps = Math.min(MAX_PREDICT, Timestamp.ageRounds(timestamp(rc, cluster), numRound) / ROUNDS_PER_TILE);
+        int x = Math.max(0, Math.min(rc.getMapWidth() - 1, location.x + heading.getDeltaX() * steps));
+        int y = Math.max(0, Math.min(rc.getMapHeight() - 1, location.y + heading.getDeltaY() * steps));
+        return new MapLocation(x, y);
+    }
+
+    /**
+     * Finds the live cluster most worth reinforcing from a location: the larger and closer, the better.
+     *
+     * @return index of the cluster, or -1 if there is no live cluster
+     */
+    public static int mostThreatening(RobotController rc, MapLocation from, int numRound) throws GameActionException {
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < size(); i++) {
+            if (!isLive(rc, i, numRound)) continue;
+            int score = count(rc, i) * 10 - Map.diagonalDist(from, location(rc, i));
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Merges a sighting into the closest live cluster, or starts a new cluster in an empty or decayed slot, replacing
+     * the smallest cluster if there is none. The caller should check that it can write shared memory.
+     *
+     * @param heading direction the launchers are moving in, {@code CENTER} if unknown
+     * @param tick    {@link Timestamp} of the sighting
+     */
+    public static void merge(RobotController rc, MapLocation location, int count, Direction heading, int tick)
+            throws GameActionException {
+        final int numRound = rc.getRoundNum();
+        int target = -1;
+        int closest = MERGE_DIST + 1;
+        int free = -1;
+        int smallest = -1;
+        for (int i = 0; i < size(); i++) {
+            if (!isLive(rc, i, numRound)) {
+                if (free == -1) free = i;
+                continue;
+            }
+            int dist = Map.diagonalDist(location, location(rc, i));
+            if (dist < closest) {
+                target = i;
+                closest = dist;
+            }
+            if (smallest == -1 || count(rc, i) < count(rc, smallest)) {
+                smallest = i;
+            }
+        }
+        if (target != -1) {
+            int stored = timestamp(rc, target);
+            if (Timestamp.isNewer(stored, tick)) {
+                // a newer sighting is already recorded
+                return;
+            }
+            MapLocation old = location(rc, target);
+            if (heading == Direction.CENTER) {
+                heading = old.equals(location) ? heading(rc, target) : old.directionTo(location);
+            }
+            if (stored == tick) {
+                // seen by several robots in the same tick, take the largest estimate
+                count = Math.max(count, count(rc, target));
+            }
+        } else {
+            target = (free != -1) ? free : smallest;
+            if (target == -1 || (free == -1 && count < count(rc, target))) {
+                return;
+            }
+        }
+        int word = (Math.min(count, MAX_COUNT) << 12) | MemoryAddress.fromLocation(location);
+        rc.writeSharedArray(index(target), word);
+        rc.writeSharedArray(index(target) + 1, (tick << 4) | heading.ordinal());
+    }
+
+    /**
+     * Clears the clusters not seen for {@link #DECAY_ROUNDS} rounds. Called by the headquarters every tick, which also
+     * keeps their timestamps from wrapping around.
+     */
+    public static void decay(RobotController rc, int numRound) throws GameActionException {
+        for (int i = 0; i < size(); i++) {
+            if (!isEmpty(rc, i) && !isLive(rc, i, numRound)) {
+                rc.writeSharedArray(index(i), MemoryAddress.MASK_COORDS);
+            }
+        }
+    }
+
+}
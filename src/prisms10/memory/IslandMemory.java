@@ -0,0 +1,104 @@
+package prisms10.memory;
+
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.Team;
+
+/**
+ * Accessors of sky island information in shared memory.
+ * <p>
+ * The location of each island is a 12-bit entry ({@code XXXX XXYY YYYY}) of {@link MemorySection#SKY_ISLAND}, all 1s if
+ * the island is not found yet. Its status is a 6-bit entry ({@code CCCCSS}) of {@link MemorySection#ISLAND_STATUS},
+ * where {@code S} is the occupation status and {@code C} is the {@link Timestamp} of the last time it was seen. Islands are identified by their IDs, in range
+ * {@code [1, rc.getIslandCount()]}.
+ */
+public class IslandMemory {
+
+    // occupation status
+    public static final int NEUTRAL = 0;
+    public static final int OURS = 1;
+    public static final int ENEMY = 2;
+
+    static final int MASK_STATUS = 0x3;
+    static final int SHIFT_TIMESTAMP = 2;
+    public static final int FRESH_ROUNDS = 40;       // statuses seen within this many rounds are trusted
+
+    /**
+     * Number of islands on the map; valid IDs are {@code 1} to this number.
+     */
+    public static int count() {
+        return MemorySection.SKY_ISLAND.size();
+    }
+
+    /**
+     * Converts the team occupying an island into its occupation status.
+     */
+    public static int statusOf(Team occupying, Team self) {
+        return (occupying == Team.NEUTRAL) ? NEUTRAL : (occupying == self) ? OURS : ENEMY;
+    }
+
+    /**
+     * Whether the location of an island has been recorded.
+     */
+    public static boolean isKnown(RobotController rc, int islandID) throws GameActionException {
+        return MemorySection.SKY_ISLAND.readEntry(rc, islandID - 1) != MemoryAddress.MASK_COORDS;
+    }
+
+    /**
+     * Location of an island. Only valid if {@link #isKnown} is true.
+     */
+    public static MapLocation location(RobotController rc, int islandID) throws GameActionException {
+        return MemoryAddress.toLocation(MemorySection.SKY_ISLAND.readEntry(rc, islandID - 1));
+    }
+
+    public static int status(RobotController rc, int islandID) throws GameActionException {
+        return MemorySection.ISLAND_STATUS.readEntry(rc, islandID - 1) & MASK_STATUS;
+    }
+
+    public static int timestamp(RobotController rc, int islandID) throws GameActionException {
+        return MemorySection.ISLAND_STATUS.readEntry(rc, islandID - 1) >>> SHIFT_TIMESTAMP;
+    }
+
+    /**
+     * Approximate number of rounds since the status of an island was last seen, see {@link Timestamp#ageRounds}.
+     */
+    public static int age(RobotController rc, int islandID, int numRound) throws GameActionException {
+        return Timestamp.ageRounds(timestamp(rc, islandID), numRound);
+    }
+
+    /**
+     * Whether the status of an island was seen within {@link #FRESH_ROUNDS} rounds.
+     */
+    public static boolean isFresh(RobotController rc, int islandID, int numRound) throws GameActionException {
+        return Timestamp.isFresh(timestamp(rc, islandID), numRound, FRESH_ROUNDS);
+    }
+
+    public static boolean canWrite(RobotController rc, int islandID) {
+        return MemorySection.SKY_ISLAND.canWriteEntry(rc, islandID - 1);
+    }
+
+    /**
+     * Records the location of an island. The caller should check {@link #canWrite} first.
+     */
+    public static void writeLocation(RobotController rc, int islandID, MapLocation location) throws GameActionException {
+        MemorySection.SKY_ISLAND.writeEntry(rc, islandID - 1, MemoryAddress.fromLocation(location));
+    }
+
+    /**
+     * Records the occupation status of an island seen in the given round. The caller should check {@link #canWrite}
+     * first.
+     */
+    public static void writeStatus(RobotController rc, int islandID, int status, int numRound) throws GameActionException {
+        int entry = (Timestamp.tick(numRound) << SHIFT_TIMESTAMP) | status;
+        MemorySection.ISLAND_STATUS.writeEntry(rc, islandID - 1, entry);
+    }
+
+    /**
+     * Clamps stale island timestamps, see {@link Timestamp#clamp}. Called by the headquarters every tick.
+     */
+    public static void clampStamps(RobotController rc, int numRound) throws GameActionException {
+        MemorySection.ISLAND_STATUS.clampStamps(rc, numRound, SHIFT_TIMESTAMP);
+    }
+
+}
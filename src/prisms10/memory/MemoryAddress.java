@@ -2,12 +2,10 @@ package prisms10.memory;
 
 import battlecode.common.MapLocation;
 import battlecode.common.ResourceType;
-import battlecode.common.Team;
 
 public class MemoryAddress {
 
     // memory address masks
-    public static final int MASK_TIMESTAMP = 0xC000;
     public static final int MASK_SUBTYPE = 0x3000;
     public static final int MASK_X_COORDINATE = 0x0FC0;
     public static final int MASK_Y_COORDINATE = 0x003F;
@@ -18,14 +16,6 @@ public class MemoryAddress {
         return address == MASK_COORDS;
     }
 
-    /**
-     * Convert the number of rounds to the 2-bit timestamp value
-     * @return time stamp
-     */
-    public static int fromNumRounds(int numRound) {
-        return (numRound / 500) << 14;
-    }
-
     /**
      * Extracts the coordinates from the memory address.
      * The x and y coordinates are stored with 6 bits each in the lower 12 bits of the address.
@@ -41,12 +31,8 @@ public class MemoryAddress {
         return (location.x << 6) + location.y;
     }
 
-    public static int fromResourceLocation(ResourceType type, MapLocation location, int numRound) {
-        return fromNumRounds(numRound) | (type.resourceID << 12) | fromLocation(location);
-    }
-
-    public static int fromOccupationStatus(Team occupying, Team self) {
-        return (occupying == Team.NEUTRAL) ? 0x0000 : (occupying == self) ? 0x1000 : 0x2000;
+    public static int fromResourceLocation(ResourceType type, MapLocation location) {
+        return (type.resourceID << 12) | fromLocation(location);
     }
 
     public static int extractCoords(int address) {
@@ -1,79 +1,271 @@
 package prisms10.memory;
 
 import battlecode.common.GameActionException;
+import battlecode.common.GameConstants;
 import battlecode.common.RobotController;
+import prisms10.util.Randomness;
 
 import java.util.ArrayList;
 import java.util.function.Predicate;
 
+/**
+ * Sections of the shared memory.
+ * <p>
+ * Each section declares the width of its entries in bits and how many entries it needs on the current map. The layout
+ * is computed by {@link #init(RobotController)} at the start of the game: sections are placed one after another in the
+ * order they are declared, each taking {@code ceil(entries * bits / 16)} words, and the last word is reserved for the
+ * game status indicator. Every robot computes the same layout from the map, so no layout information is shared.
+ * <p>
+ * Sections with 16-bit entries can be accessed word by word between {@link #getStartIdx()} and {@link #getEndIdx()}.
+ * Entries of narrower sections are packed and may span two words; they are accessed with {@link #readEntry} and
+ * {@link #writeEntry}.
+ */
 public enum MemorySection {
 
-    WELL {
+    WELL(16, MemoryAddress.MASK_COORDS) {
         @Override
-        public int getStartIdx() {
-            return IDX_WELL;
+        int entries(RobotController rc, int wordsLeft) {
+            return 8;
         }
-
+    },
+    HQ(16, MemoryAddress.MASK_COORDS) {
         @Override
-        public int getEndIdx() {
-            return IDX_HQ;
+        int entries(RobotController rc, int wordsLeft) {
+            return GameConstants.MAX_STARTING_HEADQUARTERS;
         }
-
     },
-    HQ {
+    /**
+     * Location of each sky island ({@code x << 6 | y}), entry {@code i} for island ID {@code i + 1}.
+     * See {@link IslandMemory}.
+     */
+    SKY_ISLAND(12, 0xFFFF) {
         @Override
-        public int getStartIdx() {
-            return IDX_HQ;
+        int entries(RobotController rc, int wordsLeft) {
+            return rc.getIslandCount();
         }
-
+    },
+    /**
+     * Occupation status and timestamp of each sky island, entry {@code i} for island ID {@code i + 1}.
+     * See {@link IslandMemory}.
+     */
+    ISLAND_STATUS(2 + Timestamp.BITS, 0) {
         @Override
-        public int getEndIdx() {
-            return IDX_SKY_ISLAND;
+        int entries(RobotController rc, int wordsLeft) {
+            return rc.getIslandCount();
         }
     },
-    SKY_ISLAND {
+    ENEMY_HQ(16, MemoryAddress.MASK_COORDS) {
         @Override
-        public int getStartIdx() {
-            return IDX_SKY_ISLAND;
+        int entries(RobotController rc, int wordsLeft) {
+            return GameConstants.MAX_STARTING_HEADQUARTERS;
         }
-
+    },
+    COMBAT(16, MemoryAddress.MASK_COORDS) {
         @Override
-        public int getEndIdx() {
-            return IDX_ENEMY_HQ;
+        int entries(RobotController rc, int wordsLeft) {
+            return 6;
         }
     },
-    ENEMY_HQ {
+    /**
+     * Clusters of enemy launchers, as many as there is space for. See {@link EnemyForce}.
+     */
+    ENEMY_FORCE(16, MemoryAddress.MASK_COORDS) {
         @Override
-        public int getStartIdx() {
-            return IDX_ENEMY_HQ;
+        int entries(RobotController rc, int wordsLeft) {
+            return Math.min(EnemyForce.MAX_CLUSTERS, wordsLeft / EnemyForce.WORDS) * EnemyForce.WORDS;
         }
-
+    },
+    /**
+     * Timestamp of the last time each well in {@link #WELL} was seen, entry {@code i} for word {@code i} of the well
+     * section. Only allocated if there is space left after the island sections. See {@link Timestamp}.
+     */
+    WELL_STAMP(Timestamp.BITS, 0) {
         @Override
-        public int getEndIdx() {
-            return IDX_COMBAT;
+        int entries(RobotController rc, int wordsLeft) {
+            int entries = WELL.size();
+            return (entries * Timestamp.BITS + 15) / 16 <= wordsLeft ? entries : 0;
         }
     },
-    COMBAT {
+    /**
+     * Blocked bit of each cell of the coarse wall summary, only allocated if a distance field fits after it.
+     * See {@link WallMap}.
+     */
+    WALL_MAP(1, 0) {
         @Override
-        public int getStartIdx() {
-            return IDX_COMBAT;
+        int entries(RobotController rc, int wordsLeft) {
+            int entries = WallMap.CELLS * WallMap.CELLS;
+            return (entries + 15) / 16 + DistanceField.WORDS <= wordsLeft ? entries : 0;
         }
-
+    },
+    /**
+     * Distance fields of the headquarters, one block for each headquarters as long as there is space left.
+     * See {@link DistanceField}.
+     */
+    HQ_FIELD(16, 0) {
         @Override
-        public int getEndIdx() {
-            return IDX_COMBAT_END;
+        int entries(RobotController rc, int wordsLeft) {
+            int blocks = Math.min(GameConstants.MAX_STARTING_HEADQUARTERS, wordsLeft / DistanceField.WORDS);
+            return blocks * DistanceField.WORDS;
         }
     };
 
 
-    // starting index of each section in shared memory
-    public static final int IDX_WELL = 0;
-    public static final int IDX_HQ = 8;
-    public static final int IDX_SKY_ISLAND = 12;
-    public static final int IDX_ENEMY_HQ = 48;
-    public static final int IDX_COMBAT = 52;
-    public static final int IDX_COMBAT_END = 58;
-    public static final int IDX_GAME_STAT = 63;
+    public static final int IDX_GAME_STAT = GameConstants.SHARED_ARRAY_LENGTH - 1;
+
+    // flags in the game status indicator
+    public static final int GAME_STAT_INITIALIZED = 0x8000;
+    public static final int GAME_STAT_ANCHOR_REQUEST = 0x0800;
+    // elixir conversion plan in the game status indicator, see prisms10.strategy.ElixirPlanner
+    public static final int GAME_STAT_ELIXIR_ACTIVE = 0x0400;
+    public static final int GAME_STAT_ELIXIR_WELL = 0x01C0;      // index of the well to convert in WELL
+    public static final int GAME_STAT_ELIXIR_DELIVERED = 0x003F; // amount delivered to the well, in units of 10
+    public static final int SHIFT_ELIXIR_WELL = 6;
+    public static final int ELIXIR_UNIT = 10;
+
+    private static boolean initialized = false;
+
+    private final int bits;                          // width of each entry in bits
+    private final int initialWord;                   // value of each word when the memory is initialized
+    private int startIdx;
+    private int endIdx;
+    private int numEntries;
+
+    MemorySection(int bits, int initialWord) {
+        this.bits = bits;
+        this.initialWord = initialWord;
+    }
+
+    /**
+     * Number of entries the section needs on the current map.
+     *
+     * @param wordsLeft number of words not taken by the sections declared before this one
+     */
+    abstract int entries(RobotController rc, int wordsLeft);
+
+    /**
+     * Computes the layout of the shared memory for the current map. Should be called once before the memory is used.
+     */
+    public static void init(RobotController rc) {
+        if (initialized) {
+            return;
+        }
+        int next = 0;
+        for (MemorySection section : values()) {
+            int entries = section.entries(rc, IDX_GAME_STAT - next);
+            int words = (entries * section.bits + 15) / 16;
+            if (next + words > IDX_GAME_STAT) {
+                throw new IllegalStateException("shared memory overflow in section " + section);
+            }
+            section.numEntries = entries;
+            section.startIdx = next;
+            section.endIdx = next + words;
+            next += words;
+        }
+        initialized = true;
+    }
+
+    /**
+     * Number of words not used by any section on the current map.
+     */
+    public static int unusedWords() {
+        MemorySection[] sections = values();
+        return IDX_GAME_STAT - sections[sections.length - 1].endIdx;
+    }
+
+    /**
+     * Writes the initial value into every word of this section.
+     */
+    public void clear(RobotController rc) throws GameActionException {
+        for (int i = startIdx; i < endIdx; i++) {
+            rc.writeSharedArray(i, initialWord);
+        }
+    }
+
+    public int getStartIdx() {
+        return startIdx;
+    }
+
+    public int getEndIdx() {
+        return endIdx;
+    }
+
+    /**
+     * Number of entries in this section.
+     */
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Reads the entry with the given index in this section.
+     */
+    public int readEntry(RobotController rc, int entry) throws GameActionException {
+        if (bits == 16) {
+            return rc.readSharedArray(startIdx + entry);
+        }
+        int bit = entry * bits;
+        int word = startIdx + (bit >> 4);
+        int offset = bit & 15;
+        int value = rc.readSharedArray(word) >>> offset;
+        if (offset + bits > 16) {
+            value |= rc.readSharedArray(word + 1) << (16 - offset);
+        }
+        return value & ((1 << bits) - 1);
+    }
+
+    /**
+     * Checks whether this robot can write the entry with the given index now.
+     */
+    public boolean canWriteEntry(RobotController rc, int entry) {
+        // writing permission only depends on the location of the robot, so any index and value can be tested
+        return rc.canWriteSharedArray(startIdx + ((entry * bits) >> 4), 0);
+    }
+
+    /**
+     * Writes the entry with the given index in this section, keeping the other entries packed in the same words.
+     * The caller should check {@link #canWriteEntry} first.
+     */
+    public void writeEntry(RobotController rc, int entry, int value) throws GameActionException {
+        if (bits == 16) {
+            rc.writeSharedArray(startIdx + entry, value);
+            return;
+        }
+        int mask = (1 << bits) - 1;
+        value &= mask;
+        int bit = entry * bits;
+        int word = startIdx + (bit >> 4);
+        int offset = bit & 15;
+        int old = rc.readSharedArray(word);
+        int updated = ((old & ~(mask << offset)) | (value << offset)) & 0xFFFF;
+        if (updated != old) {
+            rc.writeSharedArray(word, updated);
+        }
+        if (offset + bits > 16) {
+            int rest = offset + bits - 16;
+            old = rc.readSharedArray(word + 1);
+            updated = (old & ~((1 << rest) - 1)) | (value >>> (16 - offset));
+            if (updated != old) {
+                rc.writeSharedArray(word + 1, updated);
+            }
+        }
+    }
+
+    /**
+     * Clamps the stale timestamps stored in the entries of this section, see {@link Timestamp#clamp}. Only the
+     * headquarters calls this, as it can always write.
+     *
+     * @param shift position of the timestamp in each entry
+     */
+    public void clampStamps(RobotController rc, int numRound, int shift) throws GameActionException {
+        for (int i = 0; i < numEntries; i++) {
+            int entry = readEntry(rc, i);
+            int stamp = (entry >>> shift) & Timestamp.MASK;
+            int clamped = Timestamp.clamp(stamp, numRound);
+            if (clamped != stamp) {
+                writeEntry(rc, i, (entry & ~(Timestamp.MASK << shift)) | (clamped << shift));
+            }
+        }
+    }
 
 
     /**
@@ -124,16 +316,11 @@ public enum MemorySection {
         return -1;
     }
 
-
-    public abstract int getStartIdx();
-
-    public abstract int getEndIdx();
-
-    public int getRandIdx() {
-
-        // rand in range [getStartIdx(), getEndIdx())
-        return (int) (Math.random() * (getEndIdx() - getStartIdx())) + getStartIdx();
+    /**
+     * A random index in range [startIdx, endIdx).
+     */
+    public int getRandIdx(Randomness random) {
+        return random.nextInt(getEndIdx() - getStartIdx()) + getStartIdx();
     }
-// returns a random index in range [startIdx, endIdx)
 
 }
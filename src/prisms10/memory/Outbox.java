@@ -0,0 +1,321 @@
+package prisms10.memory;
+
+import battlecode.common.Direction;
+import battlecode.common.GameActionException;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import prisms10.util.Randomness;
+
+/**
+ * Updates to shared memory waiting to be written.
+ * <p>
+ * A robot can only write shared memory near a headquarters, an amplifier or an island of our team, so every update is
+ * posted here first and written by {@link #flush} as soon as writing is possible. Each update has a priority and a time
+ * to live; expired updates are dropped, and a newer update of the same thing (the same location in a section, the same
+ * island, ...) supersedes the pending one. Updates are flushed from the highest priority down, so that the most
+ * valuable information reaches the team first when a robot comes back into range.
+ */
+public class Outbox {
+
+    public static final int PRIORITY_URGENT = 0;     // enemy headquarters and combats
+    public static final int PRIORITY_HIGH = 1;       // island status
+    public static final int PRIORITY_NORMAL = 2;     // new wells
+    public static final int PRIORITY_LOW = 3;        // timestamp refreshes and walls
+
+    public static final int CAPACITY = 32;
+    // time to live of updates in rounds. Island updates must be written before their timestamps get stale
+    static final int TTL_LOCATION = 1000;
+    static final int TTL_COMBAT = 20;
+    static final int TTL_STAMP = (Timestamp.HALF - 1) * Timestamp.TICK_ROUNDS;
+    static final int FORCE_AREA = 4;                 // side length of the areas enemy sightings are merged over
+
+    // kinds of updates
+    static final int KIND_ADD = 0;                   // add an address to a word section
+    static final int KIND_CLEAR = 1;                 // clear an address from a word section
+    static final int KIND_ISLAND = 2;                // island location and status, value is {@code CCCC SS LLLL LLLL LLLL}
+    static final int KIND_WELL_STAMP = 3;            // timestamp of a well, key holds its coordinates
+    static final int KIND_FLAG = 4;                  // bits to set in the game status indicator
+    static final int KIND_FORCE = 5;                 // enemy launchers, value is {@code CCCC HHHH NNNN LLLL LLLL LLLL}
+    static final int KIND_ELIXIR = 6;                // amount of resource delivered to the well being converted
+    static final int KIND_WALL = 7;                  // a blocked cell of the wall summary, key holds the cell
+
+    // pending updates, sorted by priority
+    private final int[] kinds = new int[CAPACITY];
+    private final int[] keys = new int[CAPACITY];
+    private final int[] values = new int[CAPACITY];
+    private final int[] priorities = new int[CAPACITY];
+    private final int[] expires = new int[CAPACITY];
+    private int size = 0;
+    private int elixirCarry = 0;                     // delivered amount below one ELIXIR_UNIT, added to the next report
+
+    /**
+     * Posts an address to be added to a word section, such as a well or an enemy headquarters.
+     */
+    public void postAdd(MemorySection section, int address, int priority, int numRound) {
+        int ttl = (section == MemorySection.COMBAT) ? TTL_COMBAT : TTL_LOCATION;
+        post(KIND_ADD, sectionKey(section, address), address, priority, numRound + ttl);
+    }
+
+    /**
+     * Posts an address to be removed from a word section. Supersedes a pending addition of the same location.
+     */
+    public void postClear(MemorySection section, int address, int priority, int numRound) {
+        post(KIND_CLEAR, sectionKey(section, address), address, priority, numRound + TTL_COMBAT);
+    }
+
+    /**
+     * Posts the location and occupation status of an island seen in the given round.
+     */
+    public void postIsland(int islandID, MapLocation location, int status, int numRound) {
+        int value = (Timestamp.tick(numRound) << 14) | (status << 12) | MemoryAddress.fromLocation(location);
+        int key = (KIND_ISLAND << 20) | islandID;
+        int i = find(key);
+        if (i != -1 && Timestamp.isNewer(values[i] >>> 14, value >>> 14)) {
+            // the pending update is newer
+            return;
+        }
+        post(KIND_ISLAND, key, value, PRIORITY_HIGH, numRound + TTL_STAMP);
+    }
+
+    /**
+     * Posts a refresh of the timestamp of a known well.
+     */
+    public void postWellStamp(MapLocation well, int numRound) {
+        post(KIND_WELL_STAMP, (KIND_WELL_STAMP << 20) | MemoryAddress.fromLocation(well), Timestamp.tick(numRound),
+                PRIORITY_LOW, numRound + TTL_STAMP);
+    }
+
+    /**
+     * Posts bits to be set in the game status indicator.
+     */
+    public void postFlag(int bits, int numRound) {
+        int key = (KIND_FLAG << 20) | bits;
+        post(KIND_FLAG, key, bits, PRIORITY_URGENT, numRound + TTL_LOCATION);
+    }
+
+    /**
+     * Posts a sighting of enemy launchers, see {@link EnemyForce}. Supersedes a pending sighting in the same area.
+     *
+     * @param centroid centroid of the launchers seen
+     * @param count    number of launchers seen
+     * @param heading  direction they are moving in, {@code CENTER} if unknown
+     */
+    public void postEnemyForce(MapLocation centroid, int count, Direction heading, int numRound) {
+        int value = (Timestamp.tick(numRound) << 20) | (heading.ordinal() << 16) |
+                (Math.min(count, EnemyForce.MAX_COUNT) << 12) | MemoryAddress.fromLocation(centroid);
+        int key = (KIND_FORCE << 20) | ((centroid.x / FORCE_AREA) << 6) | (centroid.y / FORCE_AREA);
+        post(KIND_FORCE, key, value, PRIORITY_URGENT, numRound + TTL_COMBAT);
+    }
+
+    /**
+     * Posts an amount of resource delivered to the well being converted to elixir. Deliveries not written yet add up.
+     */
+    public void postElixirDelivery(int amount, int numRound) {
+        amount += elixirCarry;
+        elixirCarry = 0;
+        int key = KIND_ELIXIR << 20;
+        int i = find(key);
+        if (i != -1) {
+            amount += values[i];
+        }
+        post(KIND_ELIXIR, key, amount, PRIORITY_NORMAL, numRound + TTL_LOCATION);
+    }
+
+    /**
+     * Posts a cell of the wall summary found blocked, see {@link WallMap}.
+     */
+    public void postWall(int cell, int numRound) {
+        post(KIND_WALL, (KIND_WALL << 20) | cell, cell, PRIORITY_LOW, numRound + TTL_LOCATION);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes as many pending updates as possible, highest priority first. Does nothing if this robot cannot write
+     * shared memory now.
+     */
+    public void flush(RobotController rc, Randomness random) throws GameActionException {
+        // writing permission only depends on the location of the robot
+        if (size == 0 || !rc.canWriteSharedArray(0, 0)) {
+            return;
+        }
+        final int round = rc.getRoundNum();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (expires[i] >= round && !write(rc, kinds[i], keys[i], values[i], random)) {
+                // keep the update for a later turn, preserving the order
+                kinds[kept] = kinds[i];
+                keys[kept] = keys[i];
+                values[kept] = values[i];
+                priorities[kept] = priorities[i];
+                expires[kept] = expires[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Writes an update into shared memory.
+     *
+     * @return {@code true} if the update is done with, either written or no longer needed
+     */
+    private boolean write(RobotController rc, int kind, int key, int value, Randomness random) throws GameActionException {
+        switch (kind) {
+            case KIND_ADD: {
+                MemorySection section = MemorySection.values()[key >>> 12];
+                int pos = -1;
+                for (int i = section.getStartIdx(); i < section.getEndIdx(); i++) {
+                    int read = rc.readSharedArray(i);
+                    if (read == value) {
+                        return true;
+                    }
+                    if (pos == -1 && (read & MemoryAddress.MASK_COORDS) == (value & MemoryAddress.MASK_COORDS)) {
+                        // the same location with another subtype, such as a well converted to elixir
+                        pos = i;
+                    }
+                }
+                if (pos == -1) {
+                    pos = section.contains(rc, MemoryAddress.MASK_COORDS);
+                }
+                if (pos == -1 && section == MemorySection.COMBAT) {
+                    // combats are short-lived, replace a random one
+                    pos = section.getRandIdx(random);
+                }
+                if (pos == -1) {
+                    // the section is full, and entries are rarely freed: drop the update rather than read the whole
+                    // section again on every flush
+                    return true;
+                }
+                rc.writeSharedArray(pos, value);
+                return true;
+            }
+            case KIND_CLEAR: {
+                int pos = MemorySection.values()[key >>> 12].contains(rc, value);
+                if (pos != -1) {
+                    rc.writeSharedArray(pos, MemoryAddress.MASK_COORDS);
+                }
+                return true;
+            }
+            case KIND_ISLAND: {
+                int islandID = key & 0xFFFFF;
+                int tick = value >>> 14;
+                boolean known = IslandMemory.isKnown(rc, islandID);
+                int stored = IslandMemory.timestamp(rc, islandID);
+                if (!known || Timestamp.isNewer(tick, stored)) {
+                    MemorySection.SKY_ISLAND.writeEntry(rc, islandID - 1, value & MemoryAddress.MASK_COORDS);
+                }
+                if (!known || !Timestamp.isNewer(stored, tick)) {
+                    // within the same tick, the latest status seen wins
+                    MemorySection.ISLAND_STATUS.writeEntry(rc, islandID - 1,
+                            (tick << IslandMemory.SHIFT_TIMESTAMP) | ((value >>> 12) & IslandMemory.MASK_STATUS));
+                }
+                return true;
+            }
+            case KIND_WELL_STAMP: {
+                int coords = key & MemoryAddress.MASK_COORDS;
+                for (int i = MemorySection.WELL.getStartIdx(); i < MemorySection.WELL.getEndIdx(); i++) {
+                    if ((rc.readSharedArray(i) & MemoryAddress.MASK_COORDS) == coords) {
+                        int entry = i - MemorySection.WELL.getStartIdx();
+                        if (entry < MemorySection.WELL_STAMP.size() &&
+                                Timestamp.isNewer(value, MemorySection.WELL_STAMP.readEntry(rc, entry))) {
+                            MemorySection.WELL_STAMP.writeEntry(rc, entry, value);
+                        }
+                        return true;
+                    }
+                }
+                // the well is not written yet
+                return false;
+            }
+            case KIND_FLAG: {
+                int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+                if ((status | value) != status) {
+                    rc.writeSharedArray(MemorySection.IDX_GAME_STAT, status | value);
+                }
+                return true;
+            }
+            case KIND_FORCE: {
+                if (EnemyForce.size() > 0) {
+                    EnemyForce.merge(rc, MemoryAddress.toLocation(value), (value >>> 12) & 0xF,
+                            Direction.values()[(value >>> 16) & 0xF], (value >>> 20) & Timestamp.MASK);
+                }
+                return true;
+            }
+            case KIND_ELIXIR: {
+                int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+                if ((status & MemorySection.GAME_STAT_ELIXIR_ACTIVE) == 0) {
+                    return true;
+                }
+                // the indicator counts whole units, the rest is carried over to the next delivery
+                elixirCarry = value % MemorySection.ELIXIR_UNIT;
+                int delivered = (status & MemorySection.GAME_STAT_ELIXIR_DELIVERED) + value / MemorySection.ELIXIR_UNIT;
+                delivered = Math.min(delivered, MemorySection.GAME_STAT_ELIXIR_DELIVERED);
+                rc.writeSharedArray(MemorySection.IDX_GAME_STAT,
+                        (status & ~MemorySection.GAME_STAT_ELIXIR_DELIVERED) | delivered);
+                return true;
+            }
+            case KIND_WALL: {
+                if (WallMap.isAvailable()) {
+                    MemorySection.WALL_MAP.writeEntry(rc, value, 1);
+                }
+                return true;
+            }
+            default:
+                return true;
+        }
+    }
+
+    private static int sectionKey(MemorySection section, int address) {
+        return (section.ordinal() << 12) | (address & MemoryAddress.MASK_COORDS);
+    }
+
+    private int find(int key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts an update, replacing the pending update with the same key. If the outbox is full, the update with the
+     * lowest priority is dropped.
+     */
+    private void post(int kind, int key, int value, int priority, int expire) {
+        int i = find(key);
+        if (i != -1) {
+            // superseded, remove the pending update
+            size--;
+            for (; i < size; i++) {
+                kinds[i] = kinds[i + 1];
+                keys[i] = keys[i + 1];
+                values[i] = values[i + 1];
+                priorities[i] = priorities[i + 1];
+                expires[i] = expires[i + 1];
+            }
+        } else if (size == CAPACITY) {
+            if (priorities[size - 1] < priority) {
+                return;
+            }
+            size--;
+        }
+        // insert after the updates of the same or higher priority
+        int pos = size;
+        while (pos > 0 && priorities[pos - 1] > priority) {
+            kinds[pos] = kinds[pos - 1];
+            keys[pos] = keys[pos - 1];
+            values[pos] = values[pos - 1];
+            priorities[pos] = priorities[pos - 1];
+            expires[pos] = expires[pos - 1];
+            pos--;
+        }
+        kinds[pos] = kind;
+        keys[pos] = key;
+        values[pos] = value;
+        priorities[pos] = priority;
+        expires[pos] = expire;
+        size++;
+    }
+
+}
@@ -0,0 +1,77 @@
+package prisms10.memory;
+
+/**
+ * Short timestamps of information in shared memory.
+ * <p>
+ * The round number is known to every robot, so it serves as a shared epoch: a timestamp only stores the round it was
+ * taken in as a {@link #BITS}-bit tick of {@link #TICK_ROUNDS} rounds, and its age is computed relative to the current
+ * round. Ticks wrap around every {@link #WINDOW} ticks, so ages and comparisons are taken modulo the window, which is
+ * exact as long as the stamps compared are less than {@link #HALF} ticks apart. To keep it that way, the headquarters
+ * regularly clamps every stamp older than {@link #HALF} ticks to exactly that age (see {@link #clamp}); such stamps are
+ * then just "stale".
+ */
+public class Timestamp {
+
+    public static final int BITS = 4;
+    public static final int TICK_ROUNDS = 8;         // rounds per tick
+    public static final int WINDOW = 1 << BITS;      // number of distinct ticks
+    public static final int HALF = WINDOW / 2;       // ages from this on are stale
+    static final int MASK = WINDOW - 1;
+
+    /**
+     * Converts a round number into a tick.
+     */
+    public static int tick(int numRound) {
+        return (numRound / TICK_ROUNDS) & MASK;
+    }
+
+    /**
+     * Number of ticks passed since the stamp was taken, in range {@code [0, WINDOW)}.
+     */
+    public static int age(int stamp, int numRound) {
+        return (tick(numRound) - stamp) & MASK;
+    }
+
+    /**
+     * Approximate number of rounds passed since the stamp was taken. Stale stamps report at least
+     * {@code HALF * TICK_ROUNDS} rounds.
+     */
+    public static int ageRounds(int stamp, int numRound) {
+        int age = age(stamp, numRound);
+        return (age >= HALF ? HALF : age) * TICK_ROUNDS;
+    }
+
+    /**
+     * Whether the stamp was taken at most {@code maxRounds} rounds ago, to the precision of a tick.
+     */
+    public static boolean isFresh(int stamp, int numRound, int maxRounds) {
+        int age = age(stamp, numRound);
+        return age < HALF && age * TICK_ROUNDS <= maxRounds;
+    }
+
+    public static boolean isStale(int stamp, int numRound) {
+        return age(stamp, numRound) >= HALF;
+    }
+
+    /**
+     * Whether stamp {@code a} was taken strictly after stamp {@code b}, assuming they are less than {@link #HALF} ticks
+     * apart.
+     */
+    public static boolean isNewer(int a, int b) {
+        int diff = (a - b) & MASK;
+        return diff != 0 && diff < HALF;
+    }
+
+    /**
+     * Clamps a stale stamp to exactly {@link #HALF} ticks old, so that it never wraps around to look fresh.
+     *
+     * @return the clamped stamp, or the stamp itself if it is not stale
+     */
+    public static int clamp(int stamp, int numRound) {
+        if (age(stamp, numRound) < HALF) {
+            return stamp;
+        }
+        return (tick(numRound) - HALF) & MASK;
+    }
+
+}
@@ -0,0 +1,81 @@
+package prisms10.memory;
+
+import battlecode.common.GameActionException;
+import battlecode.common.RobotController;
+
+/**
+ * A coarse summary of the walls the team has seen, kept in {@link MemorySection#WALL_MAP}.
+ * <p>
+ * The map is divided into {@link #CELLS} x {@link #CELLS} cells of up to 6 x 6 tiles, with one bit per cell, set if
+ * the cell is blocked: a robot saw every tile of it, and at least {@link #WALL_PERCENT}% of them are impassable. Robots
+ * report blocked cells through their outbox as they learn the terrain. Bits are never cleared, as walls do not move.
+ * The headquarters read the summary into their distance fields, see {@code prisms10.util.DistanceFieldJob}.
+ */
+public class WallMap {
+
+    public static final int CELLS = 10;              // number of cells along each side of the map
+    static final int WALL_PERCENT = 75;              // share of impassable tiles that blocks a cell
+
+    /**
+     * Whether there is space for the summary on this map.
+     */
+    public static boolean isAvailable() {
+        return MemorySection.WALL_MAP.size() > 0;
+    }
+
+    /**
+     * Number of tiles along one side of a cell, for a map side of the given length.
+     */
+    public static int cellSize(int mapSide) {
+        return (mapSide + CELLS - 1) / CELLS;
+    }
+
+    public static int cellOf(int x, int y, int mapWidth, int mapHeight) {
+        return (x / cellSize(mapWidth)) * CELLS + y / cellSize(mapHeight);
+    }
+
+    /**
+     * Number of tiles of the map in a cell; cells at the far edges may be cut short or lie off the map.
+     */
+    public static int cellTiles(int cell, int mapWidth, int mapHeight) {
+        int sw = cellSize(mapWidth), sh = cellSize(mapHeight);
+        int w = Math.max(0, Math.min(sw, mapWidth - (cell / CELLS) * sw));
+        int h = Math.max(0, Math.min(sh, mapHeight - (cell % CELLS) * sh));
+        return w * h;
+    }
+
+    /**
+     * Whether a fully seen cell with the given number of tiles and impassable tiles counts as blocked.
+     */
+    public static boolean isBlocked(int walls, int tiles) {
+        return tiles > 0 && walls * 100 >= tiles * WALL_PERCENT;
+    }
+
+    /**
+     * Number of blocked cells in shared memory, to tell cheaply whether the summary changed.
+     */
+    public static int count(RobotController rc) throws GameActionException {
+        int count = 0;
+        for (int i = MemorySection.WALL_MAP.getStartIdx(); i < MemorySection.WALL_MAP.getEndIdx(); i++) {
+            count += Integer.bitCount(rc.readSharedArray(i));
+        }
+        return count;
+    }
+
+    /**
+     * The blocked bit of every cell, indexed by {@link #cellOf}.
+     */
+    public static boolean[] read(RobotController rc) throws GameActionException {
+        boolean[] blocked = new boolean[CELLS * CELLS];
+        int start = MemorySection.WALL_MAP.getStartIdx();
+        int word = 0;
+        for (int cell = 0; cell < blocked.length; cell++) {
+            if ((cell & 15) == 0) {
+                word = rc.readSharedArray(start + (cell >> 4));
+            }
+            blocked[cell] = ((word >> (cell & 15)) & 1) != 0;
+        }
+        return blocked;
+    }
+
+}
@@ -0,0 +1,146 @@
+package prisms10.strategy;
+
+import battlecode.common.*;
+import prisms10.memory.EnemyForce;
+import prisms10.memory.MemoryAddress;
+import prisms10.memory.MemorySection;
+import prisms10.util.Loc;
+import prisms10.util.Map;
+
+/**
+ * Plans the conversion of a well into an elixir well.
+ * <p>
+ * A well turns into an elixir well once {@code GameConstants.UPGRADE_TO_ELIXIR} of the other resource is delivered to
+ * it (mana to an adamantium well, or adamantium to a mana well). From round {@link #START_ROUND}, the first headquarters
+ * picks the well to convert: wells close to one of our headquarters are preferred, and wells near enemy launchers or an
+ * enemy headquarters are avoided, since delivering there would be contended. The plan is kept in the game status
+ * indicator: whether a plan is active, the index of the well in {@link MemorySection#WELL}, and the amount delivered so
+ * far. A share of the carriers then collects the other resource and delivers it to the well.
+ */
+public class ElixirPlanner {
+
+    public static final int START_ROUND = 400;       // conversion is planned once the economy is running
+    static final int CONTENTION_DIST = 8;            // enemies this close to a well contend for it
+    static final int CONTENTION_PENALTY = 30;        // score deducted for a contended well
+    static final int CARRIER_SHARE = 3;              // one in this many carriers delivers for the conversion
+
+    /**
+     * Whether a conversion is planned and not finished yet.
+     */
+    public static boolean isActive(RobotController rc) throws GameActionException {
+        int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+        return (status & MemorySection.GAME_STAT_ELIXIR_ACTIVE) != 0 && !isComplete(rc, status);
+    }
+
+    /**
+     * Whether the conversion is over: enough was delivered, or a robot has seen the target turn into an elixir well
+     * (deliveries whose report was lost never add up to the required amount).
+     */
+    private static boolean isComplete(RobotController rc, int status) throws GameActionException {
+        int required = (GameConstants.UPGRADE_TO_ELIXIR + MemorySection.ELIXIR_UNIT - 1) / MemorySection.ELIXIR_UNIT;
+        if ((status & MemorySection.GAME_STAT_ELIXIR_DELIVERED) >= required) {
+            return true;
+        }
+        int index = (status & MemorySection.GAME_STAT_ELIXIR_WELL) >> MemorySection.SHIFT_ELIXIR_WELL;
+        int well = rc.readSharedArray(MemorySection.WELL.getStartIdx() + index);
+        return !MemoryAddress.isInitial(well) &&
+                (well & MemoryAddress.MASK_SUBTYPE) >> 12 == ResourceType.ELIXIR.resourceID;
+    }
+
+    /**
+     * Whether a carrier should deliver for the conversion, which keeps the other carriers collecting for the
+     * headquarters.
+     */
+    public static boolean isDelivering(RobotController rc) throws GameActionException {
+        return rc.getID() % CARRIER_SHARE == 0 && isActive(rc);
+    }
+
+    /**
+     * Address of the well being converted.
+     */
+    public static int targetWell(RobotController rc) throws GameActionException {
+        int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+        int index = (status & MemorySection.GAME_STAT_ELIXIR_WELL) >> MemorySection.SHIFT_ELIXIR_WELL;
+        return rc.readSharedArray(MemorySection.WELL.getStartIdx() + index);
+    }
+
+    /**
+     * The resource to deliver to a well to convert it.
+     */
+    public static ResourceType crossResource(int wellAddress) {
+        int type = (wellAddress & MemoryAddress.MASK_SUBTYPE) >> 12;
+        return (type == ResourceType.ADAMANTIUM.resourceID) ? ResourceType.MANA : ResourceType.ADAMANTIUM;
+    }
+
+    /**
+     * Picks a well to convert if there is none yet, and closes the plan once the conversion is over. Only the first
+     * headquarters calls this, as it can always write.
+     */
+    public static void plan(RobotController rc) throws GameActionException {
+        int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+        if ((status & MemorySection.GAME_STAT_ELIXIR_ACTIVE) != 0 && isComplete(rc, status)) {
+            status &= ~(MemorySection.GAME_STAT_ELIXIR_ACTIVE | MemorySection.GAME_STAT_ELIXIR_DELIVERED);
+            rc.writeSharedArray(MemorySection.IDX_GAME_STAT, status);
+        }
+        if (rc.getRoundNum() < START_ROUND || (status & MemorySection.GAME_STAT_ELIXIR_ACTIVE) != 0) {
+            return;
+        }
+        boolean hasAdamantium = false, hasMana = false;
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = MemorySection.WELL.getStartIdx(); i < MemorySection.WELL.getEndIdx(); i++) {
+            int address = rc.readSharedArray(i);
+            if (MemoryAddress.isInitial(address)) continue;
+            int type = (address & MemoryAddress.MASK_SUBTYPE) >> 12;
+            if (type == ResourceType.ELIXIR.resourceID) {
+                // already have an elixir well
+                return;
+            }
+            hasAdamantium |= type == ResourceType.ADAMANTIUM.resourceID;
+            hasMana |= type == ResourceType.MANA.resourceID;
+
+            MapLocation well = MemoryAddress.toLocation(address);
+            int score = -distanceToHeadquarters(rc, well, MemorySection.HQ);
+            if (isContended(rc, well)) {
+                score -= CONTENTION_PENALTY;
+            }
+            if (score > bestScore) {
+                best = i - MemorySection.WELL.getStartIdx();
+                bestScore = score;
+            }
+        }
+        // the other resource has to come from a well of the other type
+        if (best == -1 || !hasAdamantium || !hasMana) {
+            return;
+        }
+        int newStatus = (status & ~(MemorySection.GAME_STAT_ELIXIR_WELL | MemorySection.GAME_STAT_ELIXIR_DELIVERED)) |
+                MemorySection.GAME_STAT_ELIXIR_ACTIVE | (best << MemorySection.SHIFT_ELIXIR_WELL);
+        rc.writeSharedArray(MemorySection.IDX_GAME_STAT, newStatus);
+    }
+
+    private static boolean isContended(RobotController rc, MapLocation well) throws GameActionException {
+        if (distanceToHeadquarters(rc, well, MemorySection.ENEMY_HQ) <= CONTENTION_DIST) {
+            return true;
+        }
+        for (int i = 0; i < EnemyForce.size(); i++) {
+            if (EnemyForce.isLive(rc, i, rc.getRoundNum()) &&
+                    Map.diagonalDist(EnemyForce.location(rc, i), well) <= CONTENTION_DIST) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int distanceToHeadquarters(RobotController rc, MapLocation loc, MemorySection section)
+            throws GameActionException {
+        int closest = Integer.MAX_VALUE;
+        for (int i = section.getStartIdx(); i < section.getEndIdx(); i++) {
+            int address = rc.readSharedArray(i);
+            if (!MemoryAddress.isInitial(address)) {
+                closest = Math.min(closest, Loc.diagonalDist(address, loc));
+            }
+        }
+        return closest;
+    }
+
+}
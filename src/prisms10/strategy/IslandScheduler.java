@@ -0,0 +1,197 @@
+package prisms10.strategy;
+
+import battlecode.common.*;
+import prisms10.memory.IslandMemory;
+import prisms10.memory.MemoryAddress;
+import prisms10.memory.MemorySection;
+import prisms10.memory.Outbox;
+import prisms10.util.Loc;
+import prisms10.util.Map;
+
+/**
+ * Assigns island missions to launchers based on the occupation status of sky islands in {@link IslandMemory}.
+ * <p>
+ * Islands held by the enemy produce recapture missions, and islands held by us produce defend missions. The score of
+ * each mission depends on how fresh the recorded status is, how far away the island is, and the gap between the number
+ * of islands we hold and the number the enemy holds: when we are behind, recapturing is preferred; when we are ahead,
+ * defending is preferred. Launchers spread over the best missions according to their IDs, so that each mission is
+ * taken by a group of launchers instead of all of them.
+ */
+public class IslandScheduler {
+
+    public static final int MISSION_NONE = 0;
+    public static final int MISSION_DEFEND = 1;
+    public static final int MISSION_RECAPTURE = 2;
+
+    static final int BASE_DEFEND = 40;
+    static final int BASE_RECAPTURE = 60;
+    static final int GAP_WEIGHT = 15;                // score added per island of difference between us and the enemy
+    static final int STALE_DEFEND_BONUS = 20;        // our islands not seen recently need to be checked
+    static final int COMBAT_BONUS = 50;              // an island near a reported combat needs reinforcement
+    static final int COMBAT_RADIUS = 6;              // diagonal distance for a combat to count as near an island
+    static final int DIST_WEIGHT = 1;                // score deducted per tile of diagonal distance
+    static final int MAX_GROUPS = 3;                 // number of best missions the launchers are spread over
+    public static final int MISSION_TIMEOUT = 150;   // rounds before a launcher gives up a mission and re-plans
+
+    private int mission = MISSION_NONE;
+    private int islandID = -1;
+    private MapLocation target = null;
+
+    public int getMission() {
+        return mission;
+    }
+
+    public int getIslandID() {
+        return islandID;
+    }
+
+    public MapLocation getTarget() {
+        return target;
+    }
+
+    public void clear() {
+        mission = MISSION_NONE;
+        islandID = -1;
+        target = null;
+    }
+
+    /**
+     * Picks a defend or recapture mission for a launcher.
+     *
+     * @return the location of the island to go to, or {@code null} if there is no mission
+     */
+    public MapLocation assign(RobotController rc) throws GameActionException {
+
+        clear();
+        final int count = IslandMemory.count();
+        final int round = rc.getRoundNum();
+        final MapLocation myLocation = rc.getLocation();
+
+        int ours = 0, enemy = 0;
+        for (int id = 1; id <= count; id++) {
+            if (!IslandMemory.isKnown(rc, id)) continue;
+            int status = IslandMemory.status(rc, id);
+            if (status == IslandMemory.OURS) ours++;
+            else if (status == IslandMemory.ENEMY) enemy++;
+        }
+        if (ours == 0 && enemy == 0) {
+            return null;
+        }
+        final int gap = ours - enemy;
+
+        // keep the best MAX_GROUPS missions, sorted by score in descending order
+        int[] bestScore = new int[MAX_GROUPS];
+        int[] bestID = new int[MAX_GROUPS];
+        int[] bestMission = new int[MAX_GROUPS];
+        int found = 0;
+
+        for (int id = 1; id <= count; id++) {
+            if (!IslandMemory.isKnown(rc, id)) continue;
+            int status = IslandMemory.status(rc, id);
+            boolean fresh = IslandMemory.isFresh(rc, id, round);
+            MapLocation island = IslandMemory.location(rc, id);
+
+            int score;
+            int type;
+            if (status == IslandMemory.ENEMY) {
+                type = MISSION_RECAPTURE;
+                score = BASE_RECAPTURE - gap * GAP_WEIGHT;
+                if (!fresh) {
+                    // the island may have changed hands since it was recorded
+                    score /= 2;
+                }
+            } else if (status == IslandMemory.OURS) {
+                type = MISSION_DEFEND;
+                score = BASE_DEFEND + gap * GAP_WEIGHT;
+                if (!fresh) {
+                    score += STALE_DEFEND_BONUS;
+                }
+                if (isNearCombat(rc, island)) {
+                    score += COMBAT_BONUS;
+                }
+            } else {
+                // neutral islands are claimed by carriers
+                continue;
+            }
+            score -= Map.diagonalDist(myLocation, island) * DIST_WEIGHT;
+
+            // insert into the sorted list of best missions
+            int pos = Math.min(found, MAX_GROUPS - 1);
+            if (found == MAX_GROUPS && score <= bestScore[pos]) continue;
+            while (pos > 0 && bestScore[pos - 1] < score) {
+                bestScore[pos] = bestScore[pos - 1];
+                bestID[pos] = bestID[pos - 1];
+                bestMission[pos] = bestMission[pos - 1];
+                pos--;
+            }
+            bestScore[pos] = score;
+            bestID[pos] = id;
+            bestMission[pos] = type;
+            if (found < MAX_GROUPS) found++;
+        }
+
+        if (found == 0) {
+            return null;
+        }
+        // launchers spread over the best missions by their IDs, forming one group per mission
+        int selected = rc.getID() % found;
+        mission = bestMission[selected];
+        islandID = bestID[selected];
+        target = IslandMemory.location(rc, islandID);
+        return target;
+    }
+
+    /**
+     * Checks whether the headquarters should build an anchor right away: either a launcher requested one for an island
+     * being recaptured, or the enemy holds more of the known islands than we do. Neutral islands alone leave the
+     * anchor to the regular schedule of the headquarters.
+     */
+    public static boolean anchorNeeded(RobotController rc) throws GameActionException {
+
+        if ((rc.readSharedArray(MemorySection.IDX_GAME_STAT) & MemorySection.GAME_STAT_ANCHOR_REQUEST) != 0) {
+            return true;
+        }
+        int ours = 0, enemy = 0;
+        for (int id = 1; id <= IslandMemory.count(); id++) {
+            if (!IslandMemory.isKnown(rc, id)) continue;
+            int status = IslandMemory.status(rc, id);
+            if (status == IslandMemory.OURS) {
+                ours++;
+            } else if (status == IslandMemory.ENEMY) {
+                enemy++;
+            }
+        }
+        return enemy > ours;
+    }
+
+    /**
+     * Asks the headquarters for an anchor, used when an island being recaptured has become neutral. The request goes
+     * through the outbox, so that it is written once the robot is in range of shared memory.
+     */
+    public static void requestAnchor(Outbox outbox, int numRound) {
+        outbox.postFlag(MemorySection.GAME_STAT_ANCHOR_REQUEST, numRound);
+    }
+
+    /**
+     * Clears the anchor request after the headquarters built an anchor.
+     */
+    public static void clearAnchorRequest(RobotController rc) throws GameActionException {
+        int status = rc.readSharedArray(MemorySection.IDX_GAME_STAT);
+        int newStatus = status & ~MemorySection.GAME_STAT_ANCHOR_REQUEST;
+        if (status != newStatus && rc.canWriteSharedArray(MemorySection.IDX_GAME_STAT, newStatus)) {
+            rc.writeSharedArray(MemorySection.IDX_GAME_STAT, newStatus);
+        }
+    }
+
+    private static boolean isNearCombat(RobotController rc, MapLocation island) throws GameActionException {
+        for (int i = MemorySection.COMBAT.getStartIdx(); i < MemorySection.COMBAT.getEndIdx(); i++) {
+            int address = rc.readSharedArray(i);
+            if (!MemoryAddress.isInitial(address) &&
+                    Loc.diagonalDist(address, island) <= COMBAT_RADIUS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,30 @@
+package prisms10.strategy;
+
+/**
+ * Tunable constants of the strategy, in one place.
+ * <p>
+ * The constants are overridden by compiling the player with another version of this class, as the parameter tuner of
+ * the tools does for every candidate set; it also writes the best set it found as a replacement of this file. Only
+ * {@code int} and {@code float} constants initialized with a literal are tuned. As they are compile-time constants,
+ * reading them costs no more bytecode than a literal.
+ */
+public class Params {
+
+    // weights of the tiles around headquarters and wells when exploring, see GridWeight
+    public static final int GRID_HQ = 800;
+    public static final int GRID_HQ_DECAY = 100;
+    public static final int GRID_WELL = 400;
+    public static final int GRID_WELL_DECAY = 50;
+
+    public static final int MIN_COMBAT_ENEMY = 3;        // min enemy count to trigger combat mode
+    public static final int MIN_COMBAT_FOR_GLOBAL = 4;   // minimum number of combats to trigger the global combat mode
+    public static final int NEXT_ANCHOR_ROUND = 30;      // robots built between two anchors
+    public static final int CARRIER_CARGO = 40;          // weight at which a carrier stops collecting and goes home
+
+    // choices of a new launcher, in launcher state 0; it explores with the remaining probability
+    public static final float LAUNCHER_FOLLOW_COMBAT = 0.4f; // probability to move toward combat areas
+    public static final float LAUNCHER_DEFEND_HQ = 0.2f;     // probability to guard a friendly headquarters
+    public static final float LAUNCHER_ATTACK_HQ = 0.35f;    // probability to go for an enemy headquarters
+    public static final float LAUNCHER_ISLAND = 0.35f;       // probability to defend or recapture an island
+
+}
@@ -0,0 +1,111 @@
+package prisms10.strategy;
+
+import battlecode.common.*;
+import prisms10.memory.MemoryAddress;
+import prisms10.memory.MemorySection;
+import prisms10.util.Map;
+
+/**
+ * Picks relay positions for amplifiers, so that robots working far from the headquarters can write shared memory.
+ * <p>
+ * Combats and wells recorded in shared memory are the places where our robots gather; those out of the write range of
+ * every headquarters need a relay. Each of them is scored by its kind and its distance from the amplifier, and
+ * amplifiers spread over the best ones according to their IDs. The relay position is a few tiles back from the place
+ * toward the closest headquarters, so that the amplifier covers the place while staying out of the front line, and
+ * bridges the way home.
+ */
+public class RelayPlanner {
+
+    static final int COMBAT_SCORE = 100;
+    static final int WELL_SCORE = 40;
+    static final int DIST_WEIGHT = 1;                // score deducted per tile of diagonal distance
+    static final int COVERED_DIST = 6;               // places this close to a headquarters need no relay
+    static final int RELAY_OFFSET = 3;               // tiles between the relay position and the place it covers
+    static final int MAX_GROUPS = 3;                 // number of best places the amplifiers are spread over
+
+    private MapLocation target = null;
+
+    public MapLocation getTarget() {
+        return target;
+    }
+
+    /**
+     * Picks a relay position for an amplifier.
+     *
+     * @return the position, or {@code null} if no place needs a relay
+     */
+    public MapLocation assign(RobotController rc) throws GameActionException {
+
+        target = null;
+        final MapLocation myLocation = rc.getLocation();
+
+        MapLocation[] best = new MapLocation[MAX_GROUPS];
+        MapLocation[] bestHome = new MapLocation[MAX_GROUPS];
+        int[] bestScore = new int[MAX_GROUPS];
+        int found = 0;
+
+        for (MemorySection section : new MemorySection[]{MemorySection.COMBAT, MemorySection.WELL}) {
+            int base = (section == MemorySection.COMBAT) ? COMBAT_SCORE : WELL_SCORE;
+            for (int i = section.getStartIdx(); i < section.getEndIdx(); i++) {
+                int address = rc.readSharedArray(i);
+                if (MemoryAddress.isInitial(address)) continue;
+                MapLocation place = MemoryAddress.toLocation(address);
+                MapLocation home = closestHeadquarters(rc, place);
+                if (home == null || Map.diagonalDist(home, place) <= COVERED_DIST) continue;
+
+                int score = base - Map.diagonalDist(myLocation, place) * DIST_WEIGHT;
+
+                // insert into the sorted list of best places
+                int pos = Math.min(found, MAX_GROUPS - 1);
+                if (found == MAX_GROUPS && score <= bestScore[pos]) continue;
+                while (pos > 0 && bestScore[pos - 1] < score) {
+                    bestScore[pos] = bestScore[pos - 1];
+                    best[pos] = best[pos - 1];
+                    bestHome[pos] = bestHome[pos - 1];
+                    pos--;
+                }
+                bestScore[pos] = score;
+                best[pos] = place;
+                bestHome[pos] = home;
+                if (found < MAX_GROUPS) found++;
+            }
+        }
+
+        if (found == 0) {
+            return null;
+        }
+        int selected = rc.getID() % found;
+        target = relayPosition(best[selected], bestHome[selected]);
+        return target;
+    }
+
+    /**
+     * The position {@link #RELAY_OFFSET} tiles back from a place toward a headquarters.
+     */
+    static MapLocation relayPosition(MapLocation place, MapLocation home) {
+        int dist = Map.diagonalDist(home, place);
+        if (dist <= RELAY_OFFSET) {
+            return home;
+        }
+        int x = place.x + (home.x - place.x) * RELAY_OFFSET / dist;
+        int y = place.y + (home.y - place.y) * RELAY_OFFSET / dist;
+        return new MapLocation(x, y);
+    }
+
+    private static MapLocation closestHeadquarters(RobotController rc, MapLocation place) throws GameActionException {
+        MapLocation closest = null;
+        int closestDist = Integer.MAX_VALUE;
+        for (int i = MemorySection.HQ.getStartIdx(); i < MemorySection.HQ.getEndIdx(); i++) {
+            int address = rc.readSharedArray(i);
+            if (MemoryAddress.isInitial(address)) continue;
+            MapLocation hq = MemoryAddress.toLocation(address);
+            int dist = Map.diagonalDist(hq, place);
+            if (dist < closestDist) {
+                closest = hq;
+                closestDist = dist;
+            }
+        }
+        return closest;
+    }
+
+}
@@ -0,0 +1,177 @@
+package prisms10.util;
+
+import battlecode.common.MapLocation;
+import prisms10.memory.WallMap;
+
+/**
+ * Computes the walking distance from a source location to every tile of the map with a breadth first search, spread
+ * over several turns.
+ * <p>
+ * Tiles marked as impassable in the given map knowledge are avoided, and so are unknown tiles in the cells the team
+ * reported as blocked in its {@link WallMap}; other unknown tiles are assumed to be passable. After
+ * the search, the job compresses the result into one next-hop direction for each sector of a
+ * {@link #SECTORS} x {@link #SECTORS} grid over the map: the direction of the sector that the shortest path from the
+ * center of the sector enters first.
+ * <p>
+ * As other unknown tiles count as passable, the field only knows of the walls seen so far: where no known wall
+ * is in the way, a next hop merely points at the source. {@link #hasDetour()} tells whether any known wall lengthens
+ * the path from a sector.
+ */
+public class DistanceFieldJob extends Job {
+
+    public static final int SECTORS = 5;             // number of sectors along each side of the map
+
+    // offsets of the directions N, NE, E, SE, S, SW, W, NW, in the same order as Direction.values()
+    private static final int[] DX = Offsets.DIRECTION_DX;
+    private static final int[] DY = Offsets.DIRECTION_DY;
+
+    private final int width, height;
+    private final int[][] passable;                  // map knowledge, {@code -1} for impassable tiles
+    private final boolean[] blockedCells;            // cells of the wall summary reported as blocked
+    private final int cellWidth, cellHeight;
+    private final int source;                        // index ({@code x * height + y}) of the source tile
+
+    // search state, kept across turns
+    private final int[] dist;                        // distance + 1 of each tile, {@code 0} if not reached
+    private final int[] parent;                      // index of the direction to move to get closer to the source
+    private final int[] queue;
+    private int queueHead = 0, queueTail = 0;
+    private int phase = 0;                           // 0: searching, 1: computing sector next hops
+    private int sector = 0;                          // the next sector to compute in phase 1
+    private boolean detour = false;                  // whether a known wall lengthens the path from some sector
+
+    private final int[] nextHop = new int[SECTORS * SECTORS];
+
+    /**
+     * @param passable     map knowledge indexed by {@code [x][y]}, where {@code -1} marks an impassable tile and
+     *                     {@code 0} an unknown one
+     * @param blockedCells blocked cells of the wall summary, indexed by {@link WallMap#cellOf}
+     */
+    public DistanceFieldJob(MapLocation source, int width, int height, int[][] passable, boolean[] blockedCells) {
+        this.width = width;
+        this.height = height;
+        this.passable = passable;
+        this.blockedCells = blockedCells;
+        cellWidth = WallMap.cellSize(width);
+        cellHeight = WallMap.cellSize(height);
+        this.source = source.x * height + source.y;
+        dist = new int[width * height];
+        parent = new int[width * height];
+        queue = new int[width * height];
+        dist[this.source] = 1;
+        queue[queueTail++] = this.source;
+    }
+
+    @Override
+    protected boolean step(int reserve) {
+        // phase 0: breadth first search from the source
+        while (phase == 0) {
+            if (!hasBudget(reserve)) return false;
+            if (queueHead == queueTail) {
+                phase = 1;
+                break;
+            }
+            int cur = queue[queueHead++];
+            int x = cur / height;
+            int y = cur % height;
+            int nextDist = dist[cur] + 1;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                int next = nx * height + ny;
+                if (dist[next] != 0) continue;
+                int known = passable[nx][ny];
+                if (known == -1 || (known == 0 && blockedCells[(nx / cellWidth) * WallMap.CELLS + ny / cellHeight])) {
+                    continue;
+                }
+                dist[next] = nextDist;
+                parent[next] = (d + 4) % 8;  // the opposite direction leads back toward the source
+                queue[queueTail++] = next;
+            }
+        }
+        // phase 1: compress the field into sector next hops
+        while (sector < SECTORS * SECTORS) {
+            if (!hasBudget(reserve)) return false;
+            nextHop[sector] = computeNextHop(sector);
+            sector++;
+        }
+        return true;
+    }
+
+    /**
+     * Walking distance from the source to a tile, or {@code -1} if the tile is not reachable.
+     * Only valid after the job is finished.
+     */
+    public int distance(int x, int y) {
+        return dist[x * height + y] - 1;
+    }
+
+    /**
+     * Index (in the order N, NE, E, SE, S, SW, W, NW) of the next-hop direction of each sector, indexed by
+     * {@link SectorGrid#sectorOf}. Only valid after the job is finished.
+     */
+    public int[] getNextHops() {
+        return nextHop;
+    }
+
+    /**
+     * Whether known walls make the path from some sector longer than the straight line, that is whether the field
+     * tells more than the direction of the source. Only valid after the job is finished.
+     */
+    public boolean hasDetour() {
+        return detour;
+    }
+
+    private int computeNextHop(int sectorIdx) {
+        int sx = sectorIdx / SECTORS;
+        int sy = sectorIdx % SECTORS;
+        int cur = SectorGrid.centerX(sectorIdx, width) * height + SectorGrid.centerY(sectorIdx, height);
+        if (dist[cur] == 0) {
+            // the center is not reachable, start from the nearest tile to the source in this sector instead
+            detour = true;
+            cur = -1;
+            int best = Integer.MAX_VALUE;
+            int sw = SectorGrid.sectorSize(width), sh = SectorGrid.sectorSize(height);
+            for (int x = sx * sw; x < Math.min(width, (sx + 1) * sw); x++) {
+                for (int y = sy * sh; y < Math.min(height, (sy + 1) * sh); y++) {
+                    int d = dist[x * height + y];
+                    if (d != 0 && d < best) {
+                        best = d;
+                        cur = x * height + y;
+                    }
+                }
+            }
+        }
+        if (cur != -1) {
+            int straight = Math.max(Math.abs(cur / height - source / height), Math.abs(cur % height - source % height));
+            if (dist[cur] - 1 > straight) {
+                detour = true;
+            }
+            // follow the shortest path until it leaves this sector
+            while (cur != source) {
+                int d = parent[cur];
+                int nx = cur / height + DX[d];
+                int ny = cur % height + DY[d];
+                int nextSector = SectorGrid.sectorOf(nx, ny, width, height);
+                if (nextSector != sectorIdx) {
+                    return directionIndex(nextSector / SECTORS - sx, nextSector % SECTORS - sy);
+                }
+                cur = nx * height + ny;
+            }
+        }
+        // the source is in this sector or the sector is unreachable: head straight to the source
+        int srcSector = SectorGrid.sectorOf(source / height, source % height, width, height);
+        return directionIndex(srcSector / SECTORS - sx, srcSector % SECTORS - sy);
+    }
+
+    private static int directionIndex(int dx, int dy) {
+        dx = Integer.compare(dx, 0);
+        dy = Integer.compare(dy, 0);
+        for (int i = 0; i < 8; i++) {
+            if (DX[i] == dx && DY[i] == dy) return i;
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,40 @@
+package prisms10.util;
+
+/**
+ * Decides which robots of a group run a scan in a turn.
+ * <p>
+ * Robots close to each other see mostly the same wells and islands, so in a group only some of them need to scan each
+ * turn. A robot with {@code n} friendly robots in sight scans once every {@link #period(int)} turns, which grows with
+ * {@code n}; the turns are staggered by the robot ID, so that the robots of a group take turns and someone scans
+ * almost every turn. Different scans use different channels, so that the same robot does not run all of them in the
+ * same turn. Robots that are alone or at the frontier always scan, as nobody else would see what they see.
+ */
+public class DutyCycle {
+
+    public static final int MAX_PERIOD = 4;          // a robot scans at least once every this many turns
+    static final int DENSITY_PER_STEP = 2;           // friendly robots in sight per extra turn of the period
+
+    /**
+     * Number of turns between two scans of a robot with the given number of friendly robots in sight.
+     */
+    public static int period(int density) {
+        return Math.min(MAX_PERIOD, 1 + density / DENSITY_PER_STEP);
+    }
+
+    /**
+     * Whether a robot runs a scan in this turn.
+     *
+     * @param id       ID of the robot
+     * @param round    the current round number
+     * @param channel  index of the scan, to stagger different scans
+     * @param density  number of friendly robots in sight
+     * @param frontier whether the robot is alone at the edge of what the team sees
+     */
+    public static boolean onDuty(int id, int round, int channel, int density, boolean frontier) {
+        if (frontier || density == 0) {
+            return true;
+        }
+        return (id + round + channel) % period(density) == 0;
+    }
+
+}
@@ -1,11 +1,13 @@
 package prisms10.util;
 
+import prisms10.strategy.Params;
+
 public class GridWeight {
     public static final int INITIAL = 1000;
-    public static final int HQ = 800;
-    public static final int HQ_DECAY = 100;
+    public static final int HQ = Params.GRID_HQ;
+    public static final int HQ_DECAY = Params.GRID_HQ_DECAY;
     public static final int HQ_MAX_RADIUS = HQ / HQ_DECAY;
-    public static final int WELL = 400;
-    public static final int WELL_DECAY = 50;
+    public static final int WELL = Params.GRID_WELL;
+    public static final int WELL_DECAY = Params.GRID_WELL_DECAY;
     public static final int WELL_MAX_RADIUS = WELL / WELL_DECAY;
 }
@@ -0,0 +1,108 @@
+package prisms10.util;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+
+/**
+ * A robot-local index of every sky island tile the robot has seen.
+ * <p>
+ * Tiles are stored as packed coordinates ({@code x << 6 | y}, the same layout as the lower 12 bits of a memory
+ * address). For each island the index also keeps a running centroid, which is used to choose a single representative
+ * tile to share with the rest of the team.
+ */
+public class IslandIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[][] tiles;                     // packed coordinates of the known tiles of each island
+    private final int[] tileCount;                   // number of known tiles of each island
+    private final int[] sumX;                        // sum of x coordinates of known tiles, used for the centroid
+    private final int[] sumY;                        // sum of y coordinates of known tiles, used for the centroid
+    private final boolean[][] recorded = new boolean[GameConstants.MAP_MAX_WIDTH][GameConstants.MAP_MAX_HEIGHT];
+
+    /**
+     * @param islandCount number of islands on the map. Island IDs are in range {@code [1, islandCount]}
+     */
+    public IslandIndex(int islandCount) {
+        int size = islandCount + 1;
+        tiles = new int[size][];
+        tileCount = new int[size];
+        sumX = new int[size];
+        sumY = new int[size];
+    }
+
+    /**
+     * Records tiles of an island sensed by the robot. Tiles that are already known are ignored.
+     *
+     * @return the number of newly recorded tiles
+     */
+    public int record(int islandID, MapLocation[] locations) {
+        int added = 0;
+        for (MapLocation loc : locations) {
+            if (recorded[loc.x][loc.y]) {
+                continue;
+            }
+            recorded[loc.x][loc.y] = true;
+            int count = tileCount[islandID];
+            if (count == 0) {
+                tiles[islandID] = new int[INITIAL_CAPACITY];
+            } else if (count == tiles[islandID].length) {
+                int[] grown = new int[count * 2];
+                System.arraycopy(tiles[islandID], 0, grown, 0, count);
+                tiles[islandID] = grown;
+            }
+            tiles[islandID][count] = (loc.x << 6) | loc.y;
+            tileCount[islandID] = count + 1;
+            sumX[islandID] += loc.x;
+            sumY[islandID] += loc.y;
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Number of tiles of the given island known by this robot.
+     */
+    public int tileCount(int islandID) {
+        return tileCount[islandID];
+    }
+
+    /**
+     * Finds the known tile of an island that is closest to a given location.
+     *
+     * @return the closest tile, or {@code null} if no tile of the island is known
+     */
+    public MapLocation nearestTile(int islandID, MapLocation from) {
+        int count = tileCount[islandID];
+        if (count == 0) {
+            return null;
+        }
+        int[] packed = tiles[islandID];
+        int best = packed[0];
+        int minDist = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int tile = packed[i];
+            int dist = Math.max(Math.abs((tile >> 6) - from.x), Math.abs((tile & 0x3F) - from.y));
+            if (dist < minDist) {
+                minDist = dist;
+                best = tile;
+            }
+        }
+        return new MapLocation(best >> 6, best & 0x3F);
+    }
+
+    /**
+     * Returns the compact representation of an island that is shared with other robots: the known tile closest to the
+     * centroid of all known tiles. Unlike the centroid itself, this location is guaranteed to be on the island.
+     *
+     * @return the representative tile, or {@code null} if no tile of the island is known
+     */
+    public MapLocation representative(int islandID) {
+        int count = tileCount[islandID];
+        if (count == 0) {
+            return null;
+        }
+        return nearestTile(islandID, new MapLocation(sumX[islandID] / count, sumY[islandID] / count));
+    }
+
+}
@@ -0,0 +1,59 @@
+package prisms10.util;
+
+import battlecode.common.Clock;
+import battlecode.common.GameActionException;
+
+/**
+ * A computation that is too expensive for one turn and is spread over several turns.
+ * <p>
+ * A job keeps all of its progress in its own fields (preferably primitive arrays and counters), so that it can stop
+ * when the bytecode budget of a turn runs out and continue from the same point after {@code Clock.yield()}.
+ * Implementations do their work in small units in {@link #step(int)}, check {@link #hasBudget(int)} between units,
+ * and expose their results through their own getters once {@link #isFinished()} returns {@code true}.
+ */
+public abstract class Job {
+
+    private boolean finished = false;
+    private int turnsRun = 0;
+
+    /**
+     * Whether the job has finished and its results are available.
+     */
+    public final boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Number of turns in which the job has been given bytecodes.
+     */
+    public final int getTurnsRun() {
+        return turnsRun;
+    }
+
+    /**
+     * Continues the job until it finishes or the bytecodes left in this turn drop to {@code reserve}.
+     */
+    public final void resume(int reserve) throws GameActionException {
+        if (finished) {
+            return;
+        }
+        turnsRun++;
+        finished = step(reserve);
+    }
+
+    /**
+     * Does a part of the work, starting from where the last call stopped.
+     *
+     * @param reserve number of bytecodes that must be left when the method returns
+     * @return {@code true} if the job has finished
+     */
+    protected abstract boolean step(int reserve) throws GameActionException;
+
+    /**
+     * Checks whether there are enough bytecodes left in this turn to do another unit of work.
+     */
+    protected static boolean hasBudget(int reserve) {
+        return Clock.getBytecodesLeft() > reserve;
+    }
+
+}
@@ -0,0 +1,58 @@
+package prisms10.util;
+
+import battlecode.common.Clock;
+import battlecode.common.GameActionException;
+
+/**
+ * Runs resumable {@link Job}s with the bytecodes left at the end of each turn.
+ * Jobs are resumed in round-robin order, so that a long job does not block the others. Finished jobs are removed from
+ * the queue; their owners keep a reference to read the results.
+ */
+public class JobQueue {
+
+    static final int MAX_JOBS = 8;
+
+    private final Job[] jobs = new Job[MAX_JOBS];
+    private int size = 0;
+    private int next = 0;                            // index of the job to resume first in the next slice
+
+    /**
+     * Adds a job to the queue.
+     *
+     * @return {@code false} if the queue is full
+     */
+    public boolean submit(Job job) {
+        if (size == MAX_JOBS) {
+            return false;
+        }
+        jobs[size++] = job;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Resumes the jobs in the queue until all of them are finished or only {@code reserve} bytecodes are left.
+     */
+    public void runSlice(int reserve) throws GameActionException {
+        int tried = 0;
+        while (size > 0 && tried < size && Clock.getBytecodesLeft() > reserve) {
+            if (next >= size) {
+                next = 0;
+            }
+            Job job = jobs[next];
+            job.resume(reserve);
+            if (job.isFinished()) {
+                // remove it by moving the last job into its place
+                jobs[next] = jobs[--size];
+                jobs[size] = null;
+            } else {
+                next++;
+                tried++;
+            }
+        }
+    }
+
+}
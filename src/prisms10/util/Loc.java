@@ -0,0 +1,109 @@
+package prisms10.util;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+
+/**
+ * Operations on locations packed into an int, in the {@code XXXXXX YYYYYY} format of shared memory.
+ * <p>
+ * Decoding an address with {@code MemoryAddress.toLocation} allocates a {@link MapLocation}, which adds up when whole
+ * sections are scanned every turn only to compare distances. These functions work on the packed coordinates directly.
+ * The bits above the coordinates (such as the subtype of a memory address) are ignored, so a memory address can be
+ * passed as it is read. Convert to a {@code MapLocation} only for the location that is finally chosen.
+ */
+public class Loc {
+
+    public static final int MASK_X = 0x0FC0;
+    public static final int MASK_Y = 0x003F;
+    public static final int SHIFT_X = 6;
+
+    public static int pack(int x, int y) {
+        return (x << SHIFT_X) | y;
+    }
+
+    public static int pack(MapLocation loc) {
+        return (loc.x << SHIFT_X) | loc.y;
+    }
+
+    public static int x(int packed) {
+        return (packed & MASK_X) >> SHIFT_X;
+    }
+
+    public static int y(int packed) {
+        return packed & MASK_Y;
+    }
+
+    public static MapLocation toLocation(int packed) {
+        return new MapLocation((packed & MASK_X) >> SHIFT_X, packed & MASK_Y);
+    }
+
+    /**
+     * Diagonal distance (number of moves) between a packed location and a point.
+     */
+    public static int diagonalDist(int packed, int x, int y) {
+        int dx = Math.abs(((packed & MASK_X) >> SHIFT_X) - x);
+        int dy = Math.abs((packed & MASK_Y) - y);
+        return Math.max(dx, dy);
+    }
+
+    public static int diagonalDist(int packed, MapLocation loc) {
+        return diagonalDist(packed, loc.x, loc.y);
+    }
+
+    public static int diagonalDist(int packed1, int packed2) {
+        return diagonalDist(packed1, (packed2 & MASK_X) >> SHIFT_X, packed2 & MASK_Y);
+    }
+
+    /**
+     * Squared Euclidean distance between a packed location and a point.
+     */
+    public static int sqEuclideanDist(int packed, int x, int y) {
+        int dx = ((packed & MASK_X) >> SHIFT_X) - x;
+        int dy = (packed & MASK_Y) - y;
+        return dx * dx + dy * dy;
+    }
+
+    public static int sqEuclideanDist(int packed, MapLocation loc) {
+        return sqEuclideanDist(packed, loc.x, loc.y);
+    }
+
+    public static int sqEuclideanDist(int packed1, int packed2) {
+        return sqEuclideanDist(packed1, (packed2 & MASK_X) >> SHIFT_X, packed2 & MASK_Y);
+    }
+
+    /**
+     * The direction to move from one packed location toward another.
+     */
+    public static Direction directionTo(int from, int to) {
+        return Map.directionTo(((to & MASK_X) >> SHIFT_X) - ((from & MASK_X) >> SHIFT_X),
+                (to & MASK_Y) - (from & MASK_Y));
+    }
+
+    /**
+     * The location one step away in a direction. The caller checks that the result is on the map, as coordinates out
+     * of range do not fit in the packed format.
+     */
+    public static int add(int packed, Direction dir) {
+        return pack(((packed & MASK_X) >> SHIFT_X) + dir.getDeltaX(), (packed & MASK_Y) + dir.getDeltaY());
+    }
+
+    /**
+     * Calculates either the horizontal, vertical, or rotational reflection of a packed location, as
+     * {@link Map#reflect}.
+     */
+    public static int reflect(int packed, int mapWidth, int mapHeight, int symmetry) {
+        int x = (packed & MASK_X) >> SHIFT_X;
+        int y = packed & MASK_Y;
+        switch (symmetry) {
+            case 0:
+                return pack(x, mapHeight - y - 1);
+            case 1:
+                return pack(mapWidth - x - 1, y);
+            case 2:
+                return pack(mapWidth - x - 1, mapHeight - y - 1);
+            default:
+                throw new IllegalArgumentException("invalid symmetry: " + symmetry);
+        }
+    }
+
+}
@@ -69,7 +69,14 @@ public class Map {
     }
 
 
+    /**
+     * The tiles on the edge of a circle. The radii of the robot types use the unrolled tables of {@link Offsets}.
+     */
     public static MapLocation[] getCircleRimLocs(MapLocation cent, int radSqr) {
+        MapLocation[] rim = Offsets.rim(cent.x, cent.y, radSqr);
+        if (rim != null) {
+            return rim;
+        }
         int rad = (int) Math.sqrt(radSqr);
         MapLocation[] vecs = new MapLocation[rad + 1]; // each x value of radius corresbond to a y value
         for (int i = 0; i <= rad; i++) {
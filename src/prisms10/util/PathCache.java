@@ -0,0 +1,104 @@
+package prisms10.util;
+
+import battlecode.common.MapLocation;
+
+/**
+ * A robot-local cache of paths the robot has walked, so that recurring trips (such as between a headquarters and a
+ * well) can be replayed instead of navigating from scratch.
+ * <p>
+ * Paths are keyed by the region the trip started in and its destination, and are stored as arrays of packed
+ * coordinates ({@code x << 6 | y}). The cache holds at most {@link #CAPACITY} paths; when it is full, the least recently
+ * used path is evicted.
+ */
+public class PathCache {
+
+    public static final int CAPACITY = 8;
+    public static final int MAX_LENGTH = 128;        // longer paths are not cached
+    static final int REGION_SIZE = 4;                // side length of the square regions trips start from
+
+    private final int[] keys = new int[CAPACITY];
+    private final int[][] paths = new int[CAPACITY][];
+    private final int[] lastUsed = new int[CAPACITY];
+    private int size = 0;
+
+    /**
+     * Computes the key of a trip from its origin and destination.
+     */
+    public static int key(MapLocation origin, MapLocation destination) {
+        int region = (origin.x / REGION_SIZE) * 16 + origin.y / REGION_SIZE;
+        return (region << 12) | (destination.x << 6) | destination.y;
+    }
+
+    /**
+     * Looks up the path of a trip, and marks it as recently used.
+     *
+     * @param round the current round number
+     * @return the packed tiles of the path, or {@code null} if the trip is not cached
+     */
+    public int[] get(int key, int round) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                lastUsed[i] = round;
+                return paths[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the path of a trip, replacing the path already cached for the same trip if any.
+     *
+     * @param path   buffer of packed tiles, the first {@code length} of which are copied
+     * @param length number of tiles in the path
+     * @param round  the current round number
+     */
+    public void put(int key, int[] path, int length, int round) {
+        if (length < 2 || length > MAX_LENGTH) {
+            return;
+        }
+        int slot = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot == -1) {
+            if (size < CAPACITY) {
+                slot = size++;
+            } else {
+                // evict the least recently used path
+                slot = 0;
+                for (int i = 1; i < size; i++) {
+                    if (lastUsed[i] < lastUsed[slot]) slot = i;
+                }
+            }
+        }
+        int[] copy = new int[length];
+        System.arraycopy(path, 0, copy, 0, length);
+        keys[slot] = key;
+        paths[slot] = copy;
+        lastUsed[slot] = round;
+    }
+
+    /**
+     * Removes the path of a trip, for example when it turns out to be blocked.
+     */
+    public void remove(int key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                size--;
+                keys[i] = keys[size];
+                paths[i] = paths[size];
+                lastUsed[i] = lastUsed[size];
+                paths[size] = null;
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
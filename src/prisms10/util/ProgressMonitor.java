@@ -0,0 +1,95 @@
+package prisms10.util;
+
+import battlecode.common.MapLocation;
+
+/**
+ * Watches the progress of a robot toward its target and decides when the robot is stuck.
+ * <p>
+ * The monitor keeps the best distance to the target reached so far and the positions of the last few turns. A robot
+ * is considered stuck if it does not get closer to the target for {@link #WINDOW} turns, or if it keeps coming back to
+ * positions it visited within the window (oscillation). Each time the robot is stuck the recovery level escalates:
+ * first switch the navigator, then pick an alternate target, and finally drop the job so that it can be re-assigned.
+ */
+public class ProgressMonitor {
+
+    // recovery actions, in the order of escalation
+    public static final int OK = 0;
+    public static final int SWITCH_NAVIGATOR = 1;
+    public static final int ALTERNATE_TARGET = 2;
+    public static final int REASSIGN = 3;
+
+    public static final int WINDOW = 6;              // number of turns without progress before the robot is stuck
+
+    private final int[] history = new int[WINDOW];   // packed positions ({@code x << 6 | y}) of the recent turns
+    private int historySize = 0;
+    private int historyHead = 0;
+    private int bestDist = Integer.MAX_VALUE;
+    private int stalledTurns = 0;
+    private int level = OK;
+
+    /**
+     * Forgets all progress. Should be called whenever the robot changes its target.
+     */
+    public void reset() {
+        historySize = 0;
+        historyHead = 0;
+        bestDist = Integer.MAX_VALUE;
+        stalledTurns = 0;
+        level = OK;
+    }
+
+    /**
+     * Forgets the progress toward the previous target but keeps the recovery level, so that a robot which gets stuck
+     * again after switching to an alternate target escalates further.
+     */
+    public void retarget() {
+        historySize = 0;
+        historyHead = 0;
+        bestDist = Integer.MAX_VALUE;
+        stalledTurns = 0;
+    }
+
+    /**
+     * Records the position of the robot in this turn.
+     *
+     * @param current the current location of the robot
+     * @param target  the location the robot is heading to
+     * @return the recovery action to take in this turn, {@link #OK} if the robot is making progress
+     */
+    public int update(MapLocation current, MapLocation target) {
+
+        int dist = Map.diagonalDist(current, target);
+        int packed = (current.x << 6) | current.y;
+
+        if (dist < bestDist) {
+            bestDist = dist;
+            stalledTurns = 0;
+        } else {
+            stalledTurns++;
+            // revisiting an earlier position (other than staying still) means the robot is moving back and forth
+            int last = (historyHead + WINDOW - 1) % WINDOW;
+            if (historySize > 0 && history[last] != packed) {
+                for (int i = 0; i < historySize; i++) {
+                    if (history[i] == packed) {
+                        stalledTurns = WINDOW;
+                        break;
+                    }
+                }
+            }
+        }
+
+        history[historyHead] = packed;
+        historyHead = (historyHead + 1) % WINDOW;
+        if (historySize < WINDOW) historySize++;
+
+        if (stalledTurns < WINDOW) {
+            return OK;
+        }
+        // stuck: escalate and give the next recovery strategy a full window
+        stalledTurns = 0;
+        historySize = 0;
+        if (level < REASSIGN) level++;
+        return level;
+    }
+
+}
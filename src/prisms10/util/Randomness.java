@@ -9,35 +9,58 @@ import java.util.ArrayList;
 
 /**
  * A class that provides a random number generator and random selection related methods.
+ * <p>
+ * The generator is a 32-bit xorshift, which only takes a few shifts and xors per draw. {@code java.util.Random} costs
+ * many more bytecodes per call for its thread safety, which a robot does not need. The state is seeded from the ID of
+ * the robot and the round it is created in, so that robots behave differently and a match can be replayed exactly.
  */
 public class Randomness {
 
-    private final java.util.Random rng;
+    private int state;                               // never 0, as 0 is a fixed point of xorshift
 
     /**
-     * A random number generator.
-     * We will use this RNG to make some random moves. The RNG is provided by the java.util.Random class.
-     * Here, we *seed* the RNG with each robot's unique ID; this makes sure our robots behave differently and
-     * that we get the same sequence of numbers every time this code is run. This is very useful for debugging!
+     * Seeds the generator from the ID of the robot and the round number.
      */
+    public Randomness(int id, int round) {
+        this(id * 0x9E3779B9L ^ round * 0x85EBCA6BL);
+    }
+
     public Randomness(long seed) {
-        rng = new java.util.Random(seed);
+        // mix both halves of the seed, so that close seeds give unrelated sequences
+        int mixed = (int) (seed ^ (seed >>> 32)) * 0x9E3779B9;
+        state = (mixed == 0) ? 0x6D2B79F5 : mixed;
+        nextInt();
     }
 
+    /**
+     * A uniformly distributed int, of any sign.
+     */
     public int nextInt() {
-        return rng.nextInt();
+        int x = state;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        state = x;
+        return x;
     }
 
+    /**
+     * A uniformly distributed int in range [0, bound). The bound should be positive.
+     */
     public int nextInt(int bound) {
-        return rng.nextInt(bound);
+        // the high bits of the product, which avoids a division
+        return (int) (((nextInt() & 0xFFFFFFFFL) * bound) >>> 32);
     }
 
+    /**
+     * A uniformly distributed float in range [0, 1).
+     */
     public float nextFloat() {
-        return rng.nextFloat();
+        return (nextInt() >>> 8) * 0x1.0p-24f;
     }
 
     public boolean nextBoolean() {
-        return rng.nextBoolean();
+        return nextInt() < 0;
     }
 
     /**
@@ -54,7 +77,7 @@ public class Randomness {
         for (int i = 1; i < prefixSum.length; i++) {
             prefixSum[i] += prefixSum[i - 1];
         }
-        int rand = Math.abs(nextInt()) % prefixSum[prefixSum.length - 1];
+        int rand = nextInt(prefixSum[prefixSum.length - 1]);
         int index = upperBound(prefixSum, rand, -1, prefixSum.length);
         return objects[index];
     }
@@ -87,7 +110,7 @@ public class Randomness {
         if (enemyHeadquarters.size() == 0) {
             return null;
         }
-        return enemyHeadquarters.get(Math.abs(nextInt()) % enemyHeadquarters.size());
+        return enemyHeadquarters.get(nextInt(enemyHeadquarters.size()));
     }
 
 
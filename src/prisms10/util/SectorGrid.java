@@ -0,0 +1,57 @@
+package prisms10.util;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+
+/**
+ * Divides the map into a coarse grid of {@link DistanceFieldJob#SECTORS} x {@link DistanceFieldJob#SECTORS} sectors.
+ * Sectors are indexed by {@code sx * SECTORS + sy}, where {@code sx} and {@code sy} are the column and row of the sector.
+ */
+public class SectorGrid {
+
+    private static final int SECTORS = DistanceFieldJob.SECTORS;
+
+    /**
+     * Number of tiles along one side of a sector, for a map side of the given length.
+     */
+    public static int sectorSize(int mapSide) {
+        return (mapSide + SECTORS - 1) / SECTORS;
+    }
+
+    public static int sectorOf(int x, int y, int mapWidth, int mapHeight) {
+        return (x / sectorSize(mapWidth)) * SECTORS + y / sectorSize(mapHeight);
+    }
+
+    public static int sectorOf(MapLocation loc, int mapWidth, int mapHeight) {
+        return sectorOf(loc.x, loc.y, mapWidth, mapHeight);
+    }
+
+    public static int centerX(int sector, int mapWidth) {
+        int size = sectorSize(mapWidth);
+        return Math.min(mapWidth - 1, (sector / SECTORS) * size + size / 2);
+    }
+
+    public static int centerY(int sector, int mapHeight) {
+        int size = sectorSize(mapHeight);
+        return Math.min(mapHeight - 1, (sector % SECTORS) * size + size / 2);
+    }
+
+    /**
+     * Whether a direction from a sector is the straight direction toward another sector.
+     */
+    public static boolean pointsAt(int sector, Direction direction, int target) {
+        return direction.getDeltaX() == Integer.compare(target / SECTORS, sector / SECTORS) &&
+                direction.getDeltaY() == Integer.compare(target % SECTORS, sector % SECTORS);
+    }
+
+    /**
+     * Returns the center of the sector next to the given one in a direction, used as a waypoint.
+     */
+    public static MapLocation neighborCenter(int sector, Direction direction, int mapWidth, int mapHeight) {
+        int sx = Math.max(0, Math.min(SECTORS - 1, sector / SECTORS + direction.getDeltaX()));
+        int sy = Math.max(0, Math.min(SECTORS - 1, sector % SECTORS + direction.getDeltaY()));
+        int next = sx * SECTORS + sy;
+        return new MapLocation(centerX(next, mapWidth), centerY(next, mapHeight));
+    }
+
+}
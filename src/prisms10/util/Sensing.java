@@ -0,0 +1,212 @@
+package prisms10.util;
+
+import battlecode.common.*;
+
+/**
+ * Memoizes the sensing results of a robot within a turn.
+ * <p>
+ * The same robots, wells, islands and tiles are asked for by the controller, the scans and the navigation several times
+ * per turn, and each call to the {@link RobotController} costs bytecodes. Results are kept until the round changes or
+ * the robot moves, when what it can sense changes. Robots are also split by team and counted by type once per turn.
+ * After an action that changes the surroundings within the turn, such as an attack, call {@link #invalidate()}.
+ */
+public class Sensing {
+
+    private final RobotController rc;
+    private int round = -1;
+    private MapLocation location = null;
+
+    private RobotInfo[] robots;
+    private RobotInfo[] allies;
+    private RobotInfo[] enemies;
+    private final int[] enemyCountByType = new int[RobotType.values().length];
+    private WellInfo[] wells;
+    private int[] islands;
+    private final MapLocation[][] islandLocations;
+    private final int[] islandVersions;              // value of version when each entry of islandLocations was sensed
+    private final Team[] islandOwners;
+    private final int[] ownerVersions;               // value of version when each entry of islandOwners was sensed
+    private int ownIsland;                           // island ID of the tile the robot is on, OWN_ISLAND_UNKNOWN if not sensed
+    private static final int OWN_ISLAND_UNKNOWN = -2;
+    private int version = 0;                         // increased whenever the memoized results are dropped
+    private MapInfo[] mapInfos;
+    private MapInfo ownMapInfo;
+
+    public Sensing(RobotController rc) {
+        this.rc = rc;
+        islandLocations = new MapLocation[GameConstants.MAX_NUMBER_ISLANDS + 1][];
+        islandVersions = new int[GameConstants.MAX_NUMBER_ISLANDS + 1];
+        islandOwners = new Team[GameConstants.MAX_NUMBER_ISLANDS + 1];
+        ownerVersions = new int[GameConstants.MAX_NUMBER_ISLANDS + 1];
+    }
+
+    /**
+     * Drops every memoized result, so that the next query senses again.
+     */
+    public void invalidate() {
+        robots = null;
+        allies = null;
+        enemies = null;
+        wells = null;
+        islands = null;
+        mapInfos = null;
+        ownMapInfo = null;
+        ownIsland = OWN_ISLAND_UNKNOWN;
+        version++;
+    }
+
+    /**
+     * Drops the memoized results if the round changed or the robot moved since they were sensed.
+     */
+    private void validate() {
+        MapLocation current = rc.getLocation();
+        if (round != rc.getRoundNum() || !current.equals(location)) {
+            round = rc.getRoundNum();
+            location = current;
+            invalidate();
+        }
+    }
+
+    /**
+     * Every robot in sight, of both teams.
+     */
+    public RobotInfo[] robots() {
+        validate();
+        if (robots == null) {
+            robots = rc.senseNearbyRobots();
+        }
+        return robots;
+    }
+
+    public RobotInfo[] allies() {
+        splitRobots();
+        return allies;
+    }
+
+    public RobotInfo[] enemies() {
+        splitRobots();
+        return enemies;
+    }
+
+    /**
+     * Number of enemy robots of a type in sight.
+     */
+    public int enemyCount(RobotType type) {
+        splitRobots();
+        return enemyCountByType[type.ordinal()];
+    }
+
+    private void splitRobots() {
+        RobotInfo[] all = robots();
+        if (enemies != null) {
+            return;
+        }
+        Team self = rc.getTeam();
+        int numEnemies = 0;
+        for (int i = 0; i < enemyCountByType.length; i++) {
+            enemyCountByType[i] = 0;
+        }
+        for (RobotInfo robot : all) {
+            if (robot.getTeam() != self) {
+                numEnemies++;
+                enemyCountByType[robot.getType().ordinal()]++;
+            }
+        }
+        allies = new RobotInfo[all.length - numEnemies];
+        enemies = new RobotInfo[numEnemies];
+        int a = 0, e = 0;
+        for (RobotInfo robot : all) {
+            if (robot.getTeam() != self) {
+                enemies[e++] = robot;
+            } else {
+                allies[a++] = robot;
+            }
+        }
+    }
+
+    /**
+     * The robot at a location in sight, or {@code null} if there is none.
+     */
+    public RobotInfo robotAt(MapLocation loc) {
+        for (RobotInfo robot : robots()) {
+            if (robot.getLocation().equals(loc)) {
+                return robot;
+            }
+        }
+        return null;
+    }
+
+    public WellInfo[] wells() {
+        validate();
+        if (wells == null) {
+            wells = rc.senseNearbyWells();
+        }
+        return wells;
+    }
+
+    /**
+     * IDs of the islands in sight.
+     */
+    public int[] islands() throws GameActionException {
+        validate();
+        if (islands == null) {
+            islands = rc.senseNearbyIslands();
+        }
+        return islands;
+    }
+
+    /**
+     * Tiles in sight of an island.
+     */
+    public MapLocation[] islandLocations(int islandID) throws GameActionException {
+        validate();
+        if (islandVersions[islandID] != version || islandLocations[islandID] == null) {
+            islandLocations[islandID] = rc.senseNearbyIslandLocations(islandID);
+            islandVersions[islandID] = version;
+        }
+        return islandLocations[islandID];
+    }
+
+    /**
+     * Team occupying an island in sight.
+     */
+    public Team islandOwner(int islandID) throws GameActionException {
+        validate();
+        if (ownerVersions[islandID] != version || islandOwners[islandID] == null) {
+            islandOwners[islandID] = rc.senseTeamOccupyingIsland(islandID);
+            ownerVersions[islandID] = version;
+        }
+        return islandOwners[islandID];
+    }
+
+    /**
+     * ID of the island the robot is on, {@code -1} if it is not on an island.
+     */
+    public int ownIsland() throws GameActionException {
+        validate();
+        if (ownIsland == OWN_ISLAND_UNKNOWN) {
+            ownIsland = rc.senseIsland(location);
+        }
+        return ownIsland;
+    }
+
+    public MapInfo[] mapInfos() throws GameActionException {
+        validate();
+        if (mapInfos == null) {
+            mapInfos = rc.senseNearbyMapInfos();
+        }
+        return mapInfos;
+    }
+
+    /**
+     * Information about the tile the robot is on.
+     */
+    public MapInfo ownMapInfo() throws GameActionException {
+        validate();
+        if (ownMapInfo == null) {
+            ownMapInfo = rc.senseMapInfo(location);
+        }
+        return ownMapInfo;
+    }
+
+}
@@ -0,0 +1,108 @@
+package prisms10.util;
+
+import battlecode.common.Clock;
+import battlecode.common.GameActionException;
+import battlecode.common.RobotController;
+import battlecode.common.RobotType;
+import battlecode.common.ResourceType;
+import prisms10.memory.IslandMemory;
+
+/**
+ * Structured lines printed for offline analysis of matches, such as by the batch runner and the telemetry aggregator
+ * of the tools.
+ * <p>
+ * Each line starts with {@link #PREFIX} followed by a kind, the round and the type of the robot, then space-separated
+ * values, so that a match log is read without knowing the output format of the engine:
+ * <ul>
+ *     <li>{@code @t bc <round> <type> <bytecodes>}: bytecodes used in a turn, printed every turn</li>
+ *     <li>{@code @t st <round> <type> <from> <to>}: the robot changed its state during a turn</li>
+ *     <li>{@code @t col <round> <type> <resource> <amount>}: resources gained during its own turn (collected)</li>
+ *     <li>{@code @t xfer <round> <type> <resource> <amount>}: resources given away during its own turn (transferred,
+ *     or spent by a headquarters)</li>
+ *     <li>{@code @t recv <round> <type> <resource> <amount>}: resources given to the robot between two of its
+ *     turns</li>
+ *     <li>{@code @t atk <round> <type> <target type>}: an attack</li>
+ *     <li>{@code @t hq <round> <type> <id> <adamantium> <mana> <elixir> <built> <robots> <islands>}: resources
+ *     received and robots built by a headquarters since the start of the game, the number of robots of the team and
+ *     of islands the team is known to hold, every {@link #WINDOW} rounds</li>
+ * </ul>
+ * The methods are named {@code debug_}, so the engine only runs them when the {@code debug} property of the build
+ * is set ({@code bc.engine.debug-methods}), and then without charging their bytecodes to the robot. Callers also
+ * guard them with {@link Debug#ON}, so that submitted players do not even call them.
+ */
+public class Telemetry {
+
+    public static final String PREFIX = "@t ";
+    public static final int WINDOW = 50;             // rounds between two hq lines
+
+    static final ResourceType[] RESOURCES = {ResourceType.ADAMANTIUM, ResourceType.MANA, ResourceType.ELIXIR};
+
+    final RobotController rc;
+    int[] inventory = new int[RESOURCES.length];     // resources held at the end of the last turn
+    int[] received = new int[RESOURCES.length];      // resources given to this robot since the start of the game
+    int startState;                                  // state at the start of this turn
+
+    public Telemetry(RobotController rc) {
+        this.rc = rc;
+    }
+
+    /**
+     * Records the state and the resources given to this robot since its last turn. Called at the start of a turn.
+     */
+    public void debug_startTurn(int state) {
+        startState = state;
+        for (int i = 0; i < RESOURCES.length; i++) {
+            int change = rc.getResourceAmount(RESOURCES[i]) - inventory[i];
+            if (change > 0) {
+                received[i] += change;
+                print("recv", RESOURCES[i] + " " + change);
+            }
+            inventory[i] += change;
+        }
+    }
+
+    /**
+     * Reports the state change, resources and bytecodes of this turn. Called at the very end of a turn.
+     */
+    public void debug_endTurn(int state) {
+        if (state != startState) {
+            print("st", startState + " " + state);
+        }
+        for (int i = 0; i < RESOURCES.length; i++) {
+            int change = rc.getResourceAmount(RESOURCES[i]) - inventory[i];
+            if (change != 0) {
+                print((change > 0) ? "col" : "xfer", RESOURCES[i] + " " + Math.abs(change));
+            }
+            inventory[i] += change;
+        }
+        print("bc", Integer.toString(Clock.getBytecodeNum()));
+    }
+
+    public void debug_attack(RobotType target) {
+        print("atk", target.toString());
+    }
+
+    /**
+     * Reports the economy of a headquarters once every {@link #WINDOW} rounds.
+     *
+     * @param built robots built by this headquarters since the start of the game
+     */
+    public void debug_headquarters(int built) throws GameActionException {
+        if (rc.getRoundNum() % WINDOW != 0) {
+            return;
+        }
+        int islands = 0;
+        for (int id = 1; id <= IslandMemory.count(); id++) {
+            if (IslandMemory.status(rc, id) == IslandMemory.OURS) {
+                islands++;
+            }
+        }
+        print("hq", rc.getID() + " " + received[0] + " " + received[1] + " " + received[2] + " " + built + " " +
+                rc.getRobotCount() + " " + islands);
+    }
+
+    private void print(String kind, String values) {
+        System.out.println(PREFIX + kind + " " + rc.getRoundNum() + " " + rc.getType() + " " + values);
+    }
+
+}
@@ -0,0 +1,108 @@
+package prisms10.util;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+
+/**
+ * The damage enemy robots in sight could deal to each tile around a robot next turn.
+ * <p>
+ * The map is rebuilt once per turn from the sensed robots. Each enemy robot that deals damage (other than carriers)
+ * covers the tiles within its action radius, widened by one step for robots that can move before attacking. Tiles are
+ * not stored; the damage at a tile is summed over the attackers on demand, which is cheap as only a few attackers are
+ * ever in sight.
+ */
+public class ThreatMap {
+
+    public static final int MAX_THREATS = 8;         // attackers beyond this number are ignored
+
+    private final int[] xs = new int[MAX_THREATS];
+    private final int[] ys = new int[MAX_THREATS];
+    private final int[] damages = new int[MAX_THREATS];
+    private final int[] reaches = new int[MAX_THREATS];   // squared radius covered by each attacker
+    private int size = 0;
+    private int builtRound = -1;
+
+    /**
+     * Rebuilds the map from the robots sensed in this turn. Does nothing if it is already built in this round.
+     */
+    public void update(RobotInfo[] robots, Team self, int round) {
+        if (round == builtRound) {
+            return;
+        }
+        builtRound = round;
+        clear();
+        for (RobotInfo robot : robots) {
+            if (robot.getTeam() == self) continue;
+            RobotType type = robot.getType();
+            if (type == RobotType.CARRIER || type.damage <= 0) {
+                // the damage of carriers depends on their cargo, and they rarely attack
+                continue;
+            }
+            int reach = (type == RobotType.HEADQUARTERS) ? type.actionRadiusSquared : stepReach(type.actionRadiusSquared);
+            add(robot.getLocation().x, robot.getLocation().y, type.damage, reach);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds an attacker covering the tiles within {@code reachSq} squared distance of it.
+     */
+    public void add(int x, int y, int damage, int reachSq) {
+        if (size == MAX_THREATS) {
+            return;
+        }
+        xs[size] = x;
+        ys[size] = y;
+        damages[size] = damage;
+        reaches[size] = reachSq;
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Total damage the attackers could deal to a tile.
+     */
+    public int damageAt(int x, int y) {
+        int damage = 0;
+        for (int i = 0; i < size; i++) {
+            int dx = x - xs[i], dy = y - ys[i];
+            if (dx * dx + dy * dy <= reaches[i]) {
+                damage += damages[i];
+            }
+        }
+        return damage;
+    }
+
+    public int damageAt(MapLocation loc) {
+        return damageAt(loc.x, loc.y);
+    }
+
+    /**
+     * Squared distance from a tile to the closest attacker, {@code Integer.MAX_VALUE} if there is none.
+     */
+    public int closestDistSq(int x, int y) {
+        int closest = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int dx = x - xs[i], dy = y - ys[i];
+            closest = Math.min(closest, dx * dx + dy * dy);
+        }
+        return closest;
+    }
+
+    /**
+     * The squared radius an attacker covers if it moves one step before attacking: {@code (sqrt(r) + 1)^2}.
+     */
+    static int stepReach(int radiusSq) {
+        int r = (int) Math.sqrt(radiusSq);
+        return radiusSq + 2 * r + 1;
+    }
+
+}
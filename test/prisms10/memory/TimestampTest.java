@@ -0,0 +1,43 @@
+package prisms10.memory;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TimestampTest {
+
+    @Test
+    public void testAge() {
+        int stamp = Timestamp.tick(100);
+        assertEquals(0, Timestamp.age(stamp, 100));
+        assertEquals(1, Timestamp.age(stamp, 100 + Timestamp.TICK_ROUNDS));
+        assertTrue(Timestamp.isFresh(stamp, 120, 40));
+        assertFalse(Timestamp.isFresh(stamp, 160, 40));
+        assertEquals(Timestamp.HALF * Timestamp.TICK_ROUNDS, Timestamp.ageRounds(stamp, 100 + 500));
+    }
+
+    @Test
+    public void testWraparound() {
+        // a stamp taken just before the ticks wrap around is still older than one taken just after
+        int before = Timestamp.tick(Timestamp.WINDOW * Timestamp.TICK_ROUNDS - 1);
+        int after = Timestamp.tick(Timestamp.WINDOW * Timestamp.TICK_ROUNDS);
+        assertEquals(0, after);
+        assertTrue(Timestamp.isNewer(after, before));
+        assertFalse(Timestamp.isNewer(before, after));
+        assertFalse(Timestamp.isNewer(after, after));
+    }
+
+    @Test
+    public void testClamp() {
+        int stamp = Timestamp.tick(0);
+        int round = Timestamp.HALF * Timestamp.TICK_ROUNDS;
+        assertEquals(stamp, Timestamp.clamp(stamp, round - Timestamp.TICK_ROUNDS));
+        // once stale, a clamped stamp stays exactly HALF ticks old instead of wrapping around
+        for (; round < 2000; round += Timestamp.TICK_ROUNDS) {
+            stamp = Timestamp.clamp(stamp, round);
+            assertEquals(Timestamp.HALF, Timestamp.age(stamp, round));
+            assertTrue(Timestamp.isStale(stamp, round));
+        }
+    }
+
+}
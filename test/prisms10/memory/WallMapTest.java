@@ -0,0 +1,31 @@
+package prisms10.memory;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class WallMapTest {
+
+    @Test
+    public void testCells() {
+        // 35 tiles in cells of 4: the ninth cell holds 3 tiles, the tenth lies off the map
+        assertEquals(4, WallMap.cellSize(35));
+        assertEquals(16, WallMap.cellTiles(WallMap.cellOf(0, 0, 35, 35), 35, 35));
+        assertEquals(12, WallMap.cellTiles(WallMap.cellOf(34, 0, 35, 35), 35, 35));
+        assertEquals(9, WallMap.cellTiles(WallMap.cellOf(34, 34, 35, 35), 35, 35));
+        assertEquals(0, WallMap.cellTiles(9 * WallMap.CELLS, 35, 35));
+        int tiles = 0;
+        for (int cell = 0; cell < WallMap.CELLS * WallMap.CELLS; cell++) {
+            tiles += WallMap.cellTiles(cell, 35, 60);
+        }
+        assertEquals(35 * 60, tiles);
+    }
+
+    @Test
+    public void testBlocked() {
+        assertTrue(WallMap.isBlocked(27, 36));
+        assertFalse(WallMap.isBlocked(26, 36));
+        assertFalse(WallMap.isBlocked(0, 0));
+    }
+
+}
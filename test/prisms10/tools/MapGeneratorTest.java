@@ -0,0 +1,57 @@
+package prisms10.tools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MapGeneratorTest {
+
+    private static MapGenerator generator(int symmetry) {
+        MapGenerator generator = new MapGenerator();
+        generator.width = 40;
+        generator.height = 32;
+        generator.symmetry = symmetry;
+        generator.seed = 42;
+        generator.hqsPerTeam = 3;
+        generator.islandsPerTeam = 6;
+        generator.wallDensity = 0.25;
+        return generator;
+    }
+
+    @Test
+    public void testSymmetric() {
+        for (int symmetry = 0; symmetry < 3; symmetry++) {
+            MapModel map = generator(symmetry).generate("sym");
+            for (int tile = 0; tile < map.width * map.height; tile++) {
+                int mirror = map.reflect(tile);
+                assertEquals(map.walls[tile], map.walls[mirror]);
+                assertEquals(map.clouds[tile], map.clouds[mirror]);
+                assertEquals(map.resources[tile], map.resources[mirror]);
+                assertEquals(map.islands[tile] == 0, map.islands[mirror] == 0);
+                assertEquals(map.currents[mirror], map.reflectCurrent(map.currents[tile]));
+                // features are never under walls, and currents never push into walls or off the map
+                if (map.walls[tile]) {
+                    assertTrue(map.resources[tile] == 0 && map.islands[tile] == 0 && map.currents[tile] == 0);
+                }
+                if (map.currents[tile] != 0) {
+                    int x = map.x(tile) + MapModel.CURRENT_DX[map.currents[tile]];
+                    int y = map.y(tile) + MapModel.CURRENT_DY[map.currents[tile]];
+                    assertTrue(map.onMap(x, y) && !map.walls[map.index(x, y)]);
+                }
+            }
+            assertEquals(3, map.headquarters(MapModel.TEAM_A).size());
+            assertEquals(3, map.headquarters(MapModel.TEAM_B).size());
+            assertTrue(map.islandCount() <= MapModel.MAX_ISLANDS);
+        }
+    }
+
+    @Test
+    public void testReproducible() {
+        byte[] first = MapWriter.toBytes(generator(0).generate("same"));
+        byte[] second = MapWriter.toBytes(generator(0).generate("same"));
+        assertTrue(Arrays.equals(first, second));
+    }
+
+}
@@ -0,0 +1,51 @@
+package prisms10.tools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class MapReaderTest {
+
+    @Test
+    public void testTestingMap() throws Exception {
+        MapModel map = MapReader.read(Paths.get("maps", "TestingMap.map23"));
+        assertEquals("TestingMap", map.name);
+        assertEquals(30, map.width);
+        assertEquals(30, map.height);
+        assertEquals(MapModel.SYMMETRY_ROTATIONAL, map.symmetry);
+        assertTrue(map.isSymmetric(map.symmetry));
+        assertEquals(1, map.headquarters(MapModel.TEAM_A).size());
+        assertEquals(1, map.headquarters(MapModel.TEAM_B).size());
+        MapModel.Body hq = map.headquarters(MapModel.TEAM_A).get(0);
+        assertEquals(map.reflect(map.index(hq.x, hq.y)),
+                map.index(map.headquarters(MapModel.TEAM_B).get(0).x, map.headquarters(MapModel.TEAM_B).get(0).y));
+        assertEquals(8, map.islandCount());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MapModel map = MapReader.read(Paths.get("maps", "TestingMap.map23"));
+        MapModel copy = MapReader.fromBytes(MapWriter.toBytes(map));
+        assertEquals(map.name, copy.name);
+        assertEquals(map.width, copy.width);
+        assertEquals(map.height, copy.height);
+        assertEquals(map.symmetry, copy.symmetry);
+        assertEquals(map.randomSeed, copy.randomSeed);
+        assertTrue(Arrays.equals(map.walls, copy.walls));
+        assertTrue(Arrays.equals(map.clouds, copy.clouds));
+        assertTrue(Arrays.equals(map.currents, copy.currents));
+        assertTrue(Arrays.equals(map.islands, copy.islands));
+        assertTrue(Arrays.equals(map.resources, copy.resources));
+        assertEquals(map.bodies.size(), copy.bodies.size());
+        for (int i = 0; i < map.bodies.size(); i++) {
+            assertEquals(map.bodies.get(i).id, copy.bodies.get(i).id);
+            assertEquals(map.bodies.get(i).team, copy.bodies.get(i).team);
+            assertEquals(map.bodies.get(i).x, copy.bodies.get(i).x);
+            assertEquals(map.bodies.get(i).y, copy.bodies.get(i).y);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package prisms10.tools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MatchLogTest {
+
+    @Test
+    public void testMatch() {
+        MatchLog log = new MatchLog("TestingMap");
+        log.accept("[server] -------------------- Match Starting --------------------");
+        log.accept("[A:HEADQUARTERS#1@50] @t hq 50 HEADQUARTERS 1 300 200 0 6 5 1");
+        log.accept("[A:HEADQUARTERS#1@100] @t hq 100 HEADQUARTERS 1 700 500 0 12 9 2");
+        log.accept("[B:HEADQUARTERS#2@100] @t hq 100 HEADQUARTERS 2 400 300 0 10 11 0");
+        log.accept("[A:CARRIER#12@100] @t bc 100 CARRIER 5000");
+        log.accept("[A:CARRIER#13@100] @t bc 100 CARRIER 3000");
+        log.accept("[A:CARRIER#13@101] not telemetry");
+        log.accept("[B:LAUNCHER#14@100] @t bc 100 LAUNCHER");
+        log.accept("[server] prisms10 (B) wins (round 1523)");
+        log.accept("[server] Reason: The winning team won by destroying all enemy headquarters.");
+
+        assertEquals(MatchLog.SIDE_B, log.winner);
+        assertEquals(1523, log.rounds);
+        assertTrue(log.reason.startsWith("The winning team"));
+
+        MatchLog.Team a = log.teams[MatchLog.SIDE_A];
+        assertEquals(100, a.round);
+        assertEquals(700, a.gained(0));
+        assertEquals(500, a.gained(1));
+        assertEquals(12, a.built());
+        assertEquals(4, a.lost());                     // 12 built, 8 of them alive besides the headquarters
+        assertEquals(2, a.islands);
+        assertArrayEquals(new long[]{2, 8000}, a.bytecodes.get("CARRIER"));
+
+        MatchLog.Team b = log.teams[MatchLog.SIDE_B];
+        assertEquals(0, b.lost());
+        assertTrue(b.bytecodes.isEmpty());             // the short line is skipped
+    }
+
+}
@@ -0,0 +1,51 @@
+package prisms10.tools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class ParamSetTest {
+
+    static String source() throws Exception {
+        return new String(Files.readAllBytes(Paths.get("src", "prisms10", "strategy", "Params.java")),
+                StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ParamSet params = ParamSet.parse(source());
+        assertTrue(params.size() >= 10);
+        assertEquals("GRID_HQ", params.name(0));
+        assertEquals(800, params.value(0), 0);
+        assertEquals(source(), params.render(null));
+        assertEquals(params.toString(), ParamSet.parse(params.render("note")).toString());
+    }
+
+    @Test
+    public void testMutate() throws Exception {
+        ParamSet params = ParamSet.parse(source());
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            ParamSet mutated = params.mutate(random, 1, 0.5);
+            boolean changed = false;
+            for (int i = 0; i < params.size(); i++) {
+                double value = mutated.value(i);
+                if (params.name(i).startsWith("LAUNCHER_")) {
+                    assertTrue(value >= 0 && value <= 1);
+                } else {
+                    assertTrue(value >= 1 && value == Math.rint(value));
+                    changed |= value != params.value(i);
+                }
+            }
+            assertTrue(changed);
+            // the rendered source keeps every constant, with the new values
+            assertEquals(mutated.toString(), ParamSet.parse(mutated.render(null)).toString());
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package prisms10.tools;
+
+import static org.junit.Assert.*;
+
+import battlecode.common.RobotType;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+public class TelemetryAggregatorTest {
+
+    @Test
+    public void testSeries() throws Exception {
+        TelemetryAggregator aggregator = new TelemetryAggregator(50);
+        aggregator.read(new StringReader(String.join("\n",
+                "[server] -------------------- Match Starting --------------------",
+                "[A:CARRIER#12@10] @t st 10 CARRIER 0 1",
+                "[A:CARRIER#12@10] @t bc 10 CARRIER 4000",
+                "[A:CARRIER#12@12] @t col 12 CARRIER MANA 10",
+                "[A:CARRIER#12@12] @t bc 12 CARRIER 2000",
+                "[A:CARRIER#12@60] @t xfer 60 CARRIER MANA 40",
+                "[A:HEADQUARTERS#1@61] @t recv 61 HEADQUARTERS MANA 40",
+                "[B:LAUNCHER#14@70] @t atk 70 LAUNCHER CARRIER",
+                "[B:LAUNCHER#14@70] @t bc 70 LAUNCHER",
+                "[A:CARRIER#12@1999] @t bc 1999 CARRIER 100",
+                "[A:CARRIER#12@80] some other output",
+                "[server] prisms10 (A) wins (round 1999)")));
+
+        assertEquals(1, aggregator.matches);
+        assertEquals(1, aggregator.skipped);            // the short bc line
+        assertEquals(2, aggregator.get(0, RobotType.CARRIER, 0, TelemetryAggregator.TURNS));
+        assertEquals(6000, aggregator.get(0, RobotType.CARRIER, 0, TelemetryAggregator.BYTECODES));
+        assertEquals(4000, aggregator.get(0, RobotType.CARRIER, 0, TelemetryAggregator.MAX_BYTECODES));
+        assertEquals(10, aggregator.get(0, RobotType.CARRIER, 0, TelemetryAggregator.COLLECTED + 1));
+        assertEquals(40, aggregator.get(0, RobotType.CARRIER, 50, TelemetryAggregator.TRANSFERRED + 1));
+        assertEquals(40, aggregator.get(0, RobotType.HEADQUARTERS, 50, TelemetryAggregator.RECEIVED + 1));
+        assertEquals(1, aggregator.get(1, RobotType.LAUNCHER, 50, TelemetryAggregator.ATTACKS));
+        assertEquals(0, aggregator.get(1, RobotType.LAUNCHER, 50, TelemetryAggregator.TURNS));
+        assertEquals(1, aggregator.get(0, RobotType.CARRIER, 1950, TelemetryAggregator.TURNS));
+        assertEquals(1, aggregator.transitions(0, RobotType.CARRIER, 0, 1));
+        assertEquals(1, aggregator.get(0, RobotType.CARRIER, 0, TelemetryAggregator.STATE_CHANGES));
+    }
+
+}
@@ -0,0 +1,36 @@
+package prisms10.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DutyCycleTest {
+
+    @Test
+    public void testAloneOrFrontier() {
+        for (int round = 0; round < 10; round++) {
+            assertTrue(DutyCycle.onDuty(12345, round, 0, 0, false));
+            assertTrue(DutyCycle.onDuty(12345, round, 0, 8, true));
+        }
+    }
+
+    @Test
+    public void testGroupCoverage() {
+        // a group of robots with consecutive IDs, each seeing all the others
+        int groupSize = 10;
+        int density = groupSize - 1;
+        int scans = 0;
+        for (int round = 0; round < 100; round++) {
+            int onDuty = 0;
+            for (int id = 1000; id < 1000 + groupSize; id++) {
+                if (DutyCycle.onDuty(id, round, 2, density, false)) onDuty++;
+            }
+            // someone in the group scans every turn
+            assertTrue(onDuty > 0);
+            scans += onDuty;
+        }
+        // far fewer scans than every robot scanning every turn
+        assertTrue(scans <= 100 * groupSize / DutyCycle.period(density) + 100);
+    }
+
+}
@@ -0,0 +1,28 @@
+package prisms10.util;
+
+import static org.junit.Assert.*;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+public class LocTest {
+
+    @Test
+    public void testMatchesMapLocation() {
+        MapLocation a = new MapLocation(3, 57);
+        MapLocation b = new MapLocation(40, 12);
+        int packedA = Loc.pack(a);
+        // bits above the coordinates, such as the subtype of an address, are ignored
+        int packedB = Loc.pack(b) | 0x2000;
+        assertEquals(a, Loc.toLocation(packedA));
+        assertEquals(Map.diagonalDist(a, b), Loc.diagonalDist(packedA, packedB));
+        assertEquals(Map.sqEuclideanDist(a, b), Loc.sqEuclideanDist(packedA, packedB));
+        assertEquals(Map.directionTo(a, b), Loc.directionTo(packedA, packedB));
+        for (int symmetry = 0; symmetry < 3; symmetry++) {
+            assertEquals(Map.reflect(a, 60, 60, symmetry), Loc.toLocation(Loc.reflect(packedA, 60, 60, symmetry)));
+        }
+        assertEquals(a.add(Direction.SOUTHEAST), Loc.toLocation(Loc.add(packedA, Direction.SOUTHEAST)));
+    }
+
+}
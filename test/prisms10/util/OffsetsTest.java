@@ -0,0 +1,61 @@
+package prisms10.util;
+
+import static org.junit.Assert.*;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+import org.junit.Test;
+
+public class OffsetsTest {
+
+    @Test
+    public void testOffsetsWithin() {
+        int count = 0;
+        for (int dx = -5; dx <= 5; dx++) {
+            for (int dy = -5; dy <= 5; dy++) {
+                if ((dx != 0 || dy != 0) && dx * dx + dy * dy <= 20) count++;
+            }
+        }
+        assertEquals(count, Offsets.DX_20.length);
+        int lastDist = 0;
+        for (int i = 0; i < Offsets.DX_20.length; i++) {
+            int dist = Offsets.DX_20[i] * Offsets.DX_20[i] + Offsets.DY_20[i] * Offsets.DY_20[i];
+            assertTrue(dist >= lastDist && dist <= 20);
+            lastDist = dist;
+            for (int d = 0; d < 8; d++) {
+                int neighbor = Offsets.NEIGHBORS_20[8 * i + d];
+                if (neighbor >= 0) {
+                    Direction dir = Direction.values()[d];
+                    assertEquals(Offsets.DX_20[i] + dir.getDeltaX(), Offsets.DX_20[neighbor]);
+                    assertEquals(Offsets.DY_20[i] + dir.getDeltaY(), Offsets.DY_20[neighbor]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEnteringAfterStep() {
+        int[] dx = Offsets.dx(20), dy = Offsets.dy(20), neighbors = Offsets.neighbors(20);
+        for (int d = 0; d < 8; d++) {
+            assertEquals(Direction.values()[d].getDeltaX(), Offsets.DIRECTION_DX[d]);
+            assertEquals(Direction.values()[d].getDeltaY(), Offsets.DIRECTION_DY[d]);
+            for (int i = 0; i < dx.length; i++) {
+                // relative to the tile before the step, the offset is shifted by the step
+                int x = dx[i] + Offsets.DIRECTION_DX[d], y = dy[i] + Offsets.DIRECTION_DY[d];
+                assertEquals(x * x + y * y > 20, neighbors[8 * i + d] == -1);
+            }
+        }
+    }
+
+    @Test
+    public void testRim() {
+        MapLocation center = new MapLocation(10, 10);
+        MapLocation[] rim = Map.getCircleRimLocs(center, 9);
+        assertEquals(16, rim.length);
+        for (MapLocation loc : rim) {
+            assertTrue(Map.sqEuclideanDist(loc, center) <= 9);
+            assertTrue(Map.sqEuclideanDist(loc, center) >= 4);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package prisms10.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RandomnessTest {
+
+    @Test
+    public void testReproducible() {
+        Randomness a = new Randomness(10234, 3);
+        Randomness b = new Randomness(10234, 3);
+        Randomness c = new Randomness(10235, 3);
+        boolean differs = false;
+        for (int i = 0; i < 100; i++) {
+            int next = a.nextInt();
+            assertEquals(next, b.nextInt());
+            differs |= next != c.nextInt();
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testBounds() {
+        Randomness random = new Randomness(0);
+        int[] counts = new int[7];
+        for (int i = 0; i < 70000; i++) {
+            counts[random.nextInt(7)]++;
+            float f = random.nextFloat();
+            assertTrue(f >= 0 && f < 1);
+        }
+        // roughly uniform
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11000);
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+package prisms10.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Plays many headless matches at once and reports aggregates over them: win rate, resources brought in per round,
+ * robots lost, islands held and bytecodes used per robot type.
+ * <p>
+ * Every match runs in an engine of its own, a separate JVM, so that matches share no state; a pool of threads keeps
+ * one match per core running. By default the matches are played on a corpus of maps made by {@link MapGenerator}
+ * from a seed, and the player under test plays on side A and side B in turn, so that the same options always play
+ * the same matches. The aggregates other than the win rate come from the telemetry of the player, which has to be
+ * compiled with {@code prisms10.util.Debug.ON}.
+ * <p>
+ * Usage: {@code BatchRunner [--games=100] [--seed=1] [--threads=cores] [--player=prisms10] [--opponent=prisms10]
+ * [--classes=build/classes] [--opponentClasses=build/classes] [--maps=name,name] [--mapPath=maps] [--out=build/batch]}.
+ * Replays are saved into {@code out/replays} and the output of the engine into {@code out/logs}, gzipped, for
+ * {@link TelemetryAggregator}.
+ */
+public class BatchRunner {
+
+    /**
+     * A player to put in a match: its package and the directory of its compiled classes.
+     */
+    public static class Player {
+        public final String name;
+        public final Path classes;
+
+        public Player(String name, Path classes) {
+            this.name = name;
+            this.classes = classes;
+        }
+    }
+
+    /**
+     * One match of the batch, with the player under test on side A unless {@link #swapped}.
+     */
+    public static class Game {
+        public final String map;
+        public final Path mapPath;
+        public final Player player;
+        public final Player opponent;
+        public final boolean swapped;
+
+        public Game(String map, Path mapPath, Player player, Player opponent, boolean swapped) {
+            this.map = map;
+            this.mapPath = mapPath;
+            this.player = player;
+            this.opponent = opponent;
+            this.swapped = swapped;
+        }
+
+        public int playerSide() {
+            return swapped ? MatchLog.SIDE_B : MatchLog.SIDE_A;
+        }
+    }
+
+    public String classpath = System.getProperty("java.class.path"); // the engine and its dependencies
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public Path out = Paths.get("build", "batch");
+
+    /**
+     * Plays the games, blocking until all of them are over. Logs are in the order of the games.
+     */
+    public List<MatchLog> run(List<Game> games) throws IOException, InterruptedException {
+        Files.createDirectories(out.resolve("replays"));
+        Files.createDirectories(out.resolve("logs"));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<MatchLog>> futures = new ArrayList<>();
+            for (int i = 0; i < games.size(); i++) {
+                Game game = games.get(i);
+                String name = String.format("%04d-%s", i, game.map);
+                Path replay = out.resolve("replays").resolve(name + ".bc23");
+                Path log = out.resolve("logs").resolve(name + ".log.gz");
+                futures.add(pool.submit(() -> play(game, replay, log)));
+            }
+            List<MatchLog> logs = new ArrayList<>();
+            for (Future<MatchLog> future : futures) {
+                logs.add(future.get());
+            }
+            return logs;
+        } catch (ExecutionException e) {
+            throw new IOException("a match could not be played", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes a corpus of maps with {@link MapGenerator#corpus}, returning the names the engine knows them by.
+     */
+    public static List<String> generateCorpus(int count, long seed, Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (Path file : MapGenerator.corpus(count, seed, dir)) {
+            String name = file.getFileName().toString();
+            names.add(name.substring(0, name.length() - ".map23".length()));
+        }
+        return names;
+    }
+
+    /**
+     * A number of games on the maps in turn, with the player on side A and then on side B of each map.
+     */
+    public static List<Game> bothSides(List<String> maps, Path mapPath, int count, Player player, Player opponent) {
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String map = maps.get((i / 2) % maps.size());
+            games.add(new Game(map, mapPath.toAbsolutePath(), player, opponent, i % 2 == 1));
+        }
+        return games;
+    }
+
+    /**
+     * Plays one game in a new engine, reading its output as it comes and keeping it gzipped.
+     */
+    MatchLog play(Game game, Path replay, Path output) throws IOException, InterruptedException {
+        Player a = game.swapped ? game.opponent : game.player;
+        Player b = game.swapped ? game.player : game.opponent;
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(classpath);
+        command.add("-Dbc.server.wait-for-client=false");
+        command.add("-Dbc.server.mode=headless");
+        command.add("-Dbc.server.map-path=" + game.mapPath);
+        command.add("-Dbc.server.robot-player-to-system-out=true");
+        command.add("-Dbc.server.debug=false");
+        command.add("-Dbc.engine.debug-methods=true");    // telemetry of the player
+        command.add("-Dbc.engine.enable-profiler=false");
+        command.add("-Dbc.engine.show-indicators=false");
+        command.add("-Dbc.game.team-a=" + a.name);
+        command.add("-Dbc.game.team-b=" + b.name);
+        command.add("-Dbc.game.team-a.url=" + a.classes);
+        command.add("-Dbc.game.team-b.url=" + b.classes);
+        command.add("-Dbc.game.team-a.package=" + a.name);
+        command.add("-Dbc.game.team-b.package=" + b.name);
+        command.add("-Dbc.game.maps=" + game.map);
+        command.add("-Dbc.server.validate-maps=false");
+        command.add("-Dbc.server.alternate-order=false");
+        command.add("-Dbc.server.save-file=" + replay);
+        command.add("battlecode.server.Main");
+        command.add("-c=-");
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        MatchLog log = new MatchLog(game.map);
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             Writer kept = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(output)),
+                     StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                log.accept(line);
+                kept.write(line);
+                kept.write('\n');
+            }
+        } finally {
+            process.waitFor();
+        }
+        return log;
+    }
+
+    /**
+     * Aggregates of the player under test, and of its opponents for comparison.
+     */
+    static String report(List<Game> games, List<MatchLog> logs) {
+        int played = 0, won = 0;
+        long rounds = 0;
+        double[][] perRound = new double[2][3];
+        long[] lost = new long[2];
+        long[] islands = new long[2];
+        List<Map<String, long[]>> bytecodes = new ArrayList<>();
+        bytecodes.add(new TreeMap<>());
+        bytecodes.add(new TreeMap<>());
+        for (int i = 0; i < games.size(); i++) {
+            MatchLog log = logs.get(i);
+            if (log.winner == -1) continue;
+            played++;
+            rounds += log.rounds;
+            int side = games.get(i).playerSide();
+            if (log.winner == side) won++;
+            for (int who = 0; who < 2; who++) {
+                MatchLog.Team team = log.teams[(who == 0) ? side : 1 - side];
+                for (int resource = 0; resource < 3; resource++) {
+                    perRound[who][resource] += (double) team.gained(resource) / Math.max(1, team.round);
+                }
+                lost[who] += team.lost();
+                islands[who] += team.islands;
+                for (Map.Entry<String, long[]> entry : team.bytecodes.entrySet()) {
+                    long[] total = bytecodes.get(who).computeIfAbsent(entry.getKey(), type -> new long[2]);
+                    total[0] += entry.getValue()[0];
+                    total[1] += entry.getValue()[1];
+                }
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("matches\t%d of %d finished, won %d (%.1f%%), %.0f rounds on average%n",
+                played, games.size(), won, 100.0 * won / Math.max(1, played), (double) rounds / Math.max(1, played)));
+        report.append("\tplayer\topponent\n");
+        String[] resources = {"adamantium", "mana", "elixir"};
+        for (int resource = 0; resource < 3; resource++) {
+            report.append(String.format("%s/round\t%.2f\t%.2f%n", resources[resource],
+                    perRound[0][resource] / Math.max(1, played), perRound[1][resource] / Math.max(1, played)));
+        }
+        report.append(String.format("robots lost\t%.1f\t%.1f%n",
+                (double) lost[0] / Math.max(1, played), (double) lost[1] / Math.max(1, played)));
+        report.append(String.format("islands held\t%.2f\t%.2f%n",
+                (double) islands[0] / Math.max(1, played), (double) islands[1] / Math.max(1, played)));
+        TreeSet<String> types = new TreeSet<>();
+        for (Map<String, long[]> side : bytecodes) {
+            types.addAll(side.keySet());
+        }
+        for (String type : types) {
+            report.append(String.format("%s bytecodes/turn\t%.0f\t%.0f%n", type.toLowerCase(),
+                    perTurn(bytecodes.get(0).get(type)), perTurn(bytecodes.get(1).get(type))));
+        }
+        return report.toString();
+    }
+
+    private static double perTurn(long[] total) {
+        return (total == null || total[0] == 0) ? 0 : (double) total[1] / total[0];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchRunner runner = new BatchRunner();
+        int count = 100;
+        long seed = 1;
+        String player = "prisms10", opponent = "prisms10";
+        Path classes = Paths.get("build", "classes"), opponentClasses = null;
+        String maps = null;
+        Path mapPath = Paths.get("maps");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq == -1) {
+                throw new IllegalArgumentException("expected --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq), value = arg.substring(eq + 1);
+            switch (key) {
+                case "games": count = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "threads": runner.threads = Integer.parseInt(value); break;
+                case "player": player = value; break;
+                case "opponent": opponent = value; break;
+                case "classes": classes = Paths.get(value); break;
+                case "opponentClasses": opponentClasses = Paths.get(value); break;
+                case "maps": maps = value; break;
+                case "mapPath": mapPath = Paths.get(value); break;
+                case "out": runner.out = Paths.get(value); break;
+                default: throw new IllegalArgumentException("unknown option: " + key);
+            }
+        }
+        Player subject = new Player(player, classes.toAbsolutePath());
+        Player other = new Player(opponent, (opponentClasses == null ? classes : opponentClasses).toAbsolutePath());
+
+        List<String> names = new ArrayList<>();
+        if (maps != null) {
+            for (String name : maps.split(",")) names.add(name.trim());
+        } else {
+            // a fresh corpus for this seed
+            mapPath = runner.out.resolve("maps");
+            names = generateCorpus((count + 1) / 2, seed, mapPath);
+        }
+        List<Game> games = bothSides(names, mapPath, count, subject, other);
+
+        long start = System.nanoTime();
+        List<MatchLog> logs = runner.run(games);
+        for (int i = 0; i < games.size(); i++) {
+            MatchLog log = logs.get(i);
+            String result = (log.winner == -1) ? "unfinished"
+                    : (log.winner == games.get(i).playerSide() ? "won" : "lost") + " in " + log.rounds +
+                    ": " + log.reason;
+            System.out.println(log.map + (games.get(i).swapped ? " (B)" : " (A)") + "\t" + result);
+        }
+        System.out.print(report(games, logs));
+        System.out.printf("%d matches in %.0f s on %d threads%n", games.size(), (System.nanoTime() - start) / 1e9,
+                runner.threads);
+    }
+
+}
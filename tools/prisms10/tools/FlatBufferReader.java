@@ -0,0 +1,109 @@
+package prisms10.tools;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal reader of FlatBuffers binaries, the counterpart of {@link FlatBufferWriter}.
+ * <p>
+ * Positions are byte offsets into the buffer. A table is located from a reference to it, and its fields through its
+ * vtable; fields left out of a table read as absent, so that the caller applies the default value of the schema.
+ */
+public class FlatBufferReader {
+
+    private final byte[] buf;
+
+    public FlatBufferReader(byte[] buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * Position of the root table.
+     */
+    public int root() {
+        return deref(0);
+    }
+
+    /**
+     * Follows the reference at a position.
+     */
+    public int deref(int at) {
+        return at + getInt(at);
+    }
+
+    /**
+     * Position of a field of a table, or -1 if the field is left out.
+     */
+    public int field(int table, int index) {
+        int vtable = table - getInt(table);
+        int vtableSize = getShort(vtable);
+        if (4 + 2 * index >= vtableSize) {
+            return -1;
+        }
+        int offset = getShort(vtable + 4 + 2 * index);
+        return (offset == 0) ? -1 : table + offset;
+    }
+
+    public int intField(int table, int index, int defaultValue) {
+        int at = field(table, index);
+        return (at == -1) ? defaultValue : getInt(at);
+    }
+
+    /**
+     * Position of the table a field refers to, or -1 if the field is left out.
+     */
+    public int tableField(int table, int index) {
+        int at = field(table, index);
+        return (at == -1) ? -1 : deref(at);
+    }
+
+    public String stringField(int table, int index) {
+        int at = field(table, index);
+        if (at == -1) {
+            return null;
+        }
+        int string = deref(at);
+        return new String(buf, string + 4, getInt(string), StandardCharsets.UTF_8);
+    }
+
+    public int[] intVector(int table, int index) {
+        int at = field(table, index);
+        if (at == -1) {
+            return new int[0];
+        }
+        int vector = deref(at);
+        int[] values = new int[getInt(vector)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getInt(vector + 4 + 4 * i);
+        }
+        return values;
+    }
+
+    public byte[] byteVector(int table, int index) {
+        int at = field(table, index);
+        if (at == -1) {
+            return new byte[0];
+        }
+        int vector = deref(at);
+        byte[] values = new byte[getInt(vector)];
+        System.arraycopy(buf, vector + 4, values, 0, values.length);
+        return values;
+    }
+
+    public boolean[] boolVector(int table, int index) {
+        byte[] bytes = byteVector(table, index);
+        boolean[] values = new boolean[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            values[i] = bytes[i] != 0;
+        }
+        return values;
+    }
+
+    public int getInt(int at) {
+        return (buf[at] & 0xFF) | (buf[at + 1] & 0xFF) << 8 | (buf[at + 2] & 0xFF) << 16 | buf[at + 3] << 24;
+    }
+
+    public int getShort(int at) {
+        return (buf[at] & 0xFF) | (buf[at + 1] & 0xFF) << 8;
+    }
+
+}
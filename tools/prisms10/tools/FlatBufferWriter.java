@@ -0,0 +1,166 @@
+package prisms10.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal writer of FlatBuffers binaries, enough for the map files of the engine.
+ * <p>
+ * Unlike the official builder, the buffer is written front to back: a table is written with a slot for each of its
+ * fields, and the objects it refers to (tables, vectors, strings) are written after it. A reference is written as a
+ * placeholder and patched once its target is written, which keeps every offset pointing forward as the format
+ * requires. The vtable of a table is written right before it. All scalars are little endian.
+ */
+public class FlatBufferWriter {
+
+    static final int SIZE_REF = 4;                   // size of an offset or an int field
+    static final int SIZE_VEC = 8;                   // size of a struct of two ints
+
+    private byte[] buf = new byte[1024];
+    private int size = 0;
+    private int lastTable = -1;                      // position of the table written last
+    private short[] lastOffsets;                     // offsets of the fields in the table written last
+
+    /**
+     * Starts the buffer with the reference to the root table, which is set by {@link #setRef} once the root table is
+     * written.
+     *
+     * @return the position of the reference
+     */
+    public int startBuffer() {
+        return reserveRef();
+    }
+
+    /**
+     * Writes a table with the given inline field sizes. A size of 0 leaves the field out, so that readers use its
+     * default value.
+     *
+     * @param fieldSizes inline size of each field in bytes, in the order of the schema
+     * @return the position of the table
+     */
+    public int table(int[] fieldSizes) {
+        int inline = 4;
+        short[] offsets = new short[fieldSizes.length];
+        for (int i = 0; i < fieldSizes.length; i++) {
+            if (fieldSizes[i] > 0) {
+                offsets[i] = (short) inline;
+                inline += fieldSizes[i];
+            }
+        }
+        // vtable: its size, the size of the table, and the offset of each field in the table
+        align(2);
+        int vtable = size;
+        putShort(4 + 2 * fieldSizes.length);
+        putShort(inline);
+        for (short offset : offsets) {
+            putShort(offset);
+        }
+        align(4);
+        int table = size;
+        putInt(table - vtable);
+        ensure(inline - 4);
+        size += inline - 4;
+        lastTable = table;
+        lastOffsets = offsets;
+        return table;
+    }
+
+    /**
+     * Position of a field in the table written last.
+     */
+    public int field(int index) {
+        if (lastOffsets[index] == 0) {
+            throw new IllegalArgumentException("field " + index + " is left out of the table");
+        }
+        return lastTable + lastOffsets[index];
+    }
+
+    public int reserveRef() {
+        align(4);
+        int at = size;
+        putInt(0);
+        return at;
+    }
+
+    /**
+     * Points a reference written before to the current position, where its target (a vector or a string) is written
+     * next.
+     */
+    public void patchRef(int at) {
+        align(4);
+        setInt(at, size - at);
+    }
+
+    /**
+     * Points a reference written before to a table written after it.
+     */
+    public void setRef(int at, int table) {
+        setInt(at, table - at);
+    }
+
+    public void string(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length + 1);
+        System.arraycopy(bytes, 0, buf, size, bytes.length);
+        size += bytes.length + 1;                    // null terminated
+    }
+
+    public void intVector(int[] values) {
+        putInt(values.length);
+        for (int value : values) {
+            putInt(value);
+        }
+    }
+
+    public void byteVector(byte[] values) {
+        putInt(values.length);
+        ensure(values.length);
+        System.arraycopy(values, 0, buf, size, values.length);
+        size += values.length;
+    }
+
+    public void boolVector(boolean[] values) {
+        putInt(values.length);
+        ensure(values.length);
+        for (boolean value : values) {
+            buf[size++] = (byte) (value ? 1 : 0);
+        }
+    }
+
+    public void setInt(int at, int value) {
+        buf[at] = (byte) value;
+        buf[at + 1] = (byte) (value >>> 8);
+        buf[at + 2] = (byte) (value >>> 16);
+        buf[at + 3] = (byte) (value >>> 24);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        setInt(size, value);
+        size += 4;
+    }
+
+    private void putShort(int value) {
+        ensure(2);
+        buf[size++] = (byte) value;
+        buf[size++] = (byte) (value >>> 8);
+    }
+
+    private void align(int alignment) {
+        int padding = (alignment - size % alignment) % alignment;
+        ensure(padding);
+        size += padding;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+
+}
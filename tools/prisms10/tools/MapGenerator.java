@@ -0,0 +1,403 @@
+package prisms10.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates symmetric maps from a few parameters and a seed, for benchmarking the player on many layouts.
+ * <p>
+ * Features are placed on one tile and its reflection at the same time, so every map is symmetric. Headquarters are
+ * placed first with a clear area around them, then a pair of adamantium and mana wells near each headquarters and the
+ * extra wells, then islands as small blobs, then walls as short segments. Walls cutting off a headquarters, a well or
+ * an island from the first headquarters are carved back. Clouds and currents are added last on open tiles, and
+ * currents never point into a wall or off the map. The same parameters and seed always give the same map.
+ * <p>
+ * Usage: {@code MapGenerator [--key=value ...]} with keys {@code name, width, height, symmetry (rotational, horizontal,
+ * vertical), seed, hqs, wells, islands, walls, clouds, currents, out}, or {@code --corpus=n} to write {@code n} maps
+ * spanning the sizes, symmetries and densities allowed.
+ */
+public class MapGenerator {
+
+    static final int HQ_CLEAR_RADIUS_SQ = 9;         // tiles around a headquarters kept open, where it builds robots
+    static final int HQ_WELL_RADIUS_SQ = 50;         // the wells of each headquarters are this close to it
+    static final int MAX_ISLAND_SIZE = 9;
+    static final int MAX_TRIES = 1000;
+
+    public int width = 30;
+    public int height = 30;
+    public int symmetry = MapModel.SYMMETRY_ROTATIONAL;
+    public long seed = 0;
+    public int hqsPerTeam = 1;                       // 1 to 4
+    public int extraWells = 2;                       // wells per team besides the two of each headquarters
+    public int islandsPerTeam = 3;                   // islands come in symmetric pairs
+    public double wallDensity = 0.1;                 // share of the tiles that are walls
+    public double cloudDensity = 0.05;
+    public double currentDensity = 0.02;
+
+    private Random random;
+    private MapModel map;
+    private boolean[] reserved;                      // tiles kept free of walls, clouds and currents
+
+    public MapModel generate(String name) {
+        if (width < MapModel.MIN_SIZE || width > MapModel.MAX_SIZE || height < MapModel.MIN_SIZE || height > MapModel.MAX_SIZE) {
+            throw new IllegalArgumentException("map size out of range: " + width + "x" + height);
+        }
+        if (hqsPerTeam < 1 || hqsPerTeam > 4 || 2 * islandsPerTeam > MapModel.MAX_ISLANDS) {
+            throw new IllegalArgumentException("too many headquarters or islands");
+        }
+        random = new Random(seed);
+        map = new MapModel(name, width, height, symmetry);
+        map.randomSeed = random.nextInt(1 << 16);
+        reserved = new boolean[width * height];
+
+        placeHeadquarters();
+        placeWells();
+        placeIslands();
+        placeWalls();
+        connect();
+        placeClouds();
+        placeCurrents();
+        return map;
+    }
+
+    private void placeHeadquarters() {
+        int id = 1;
+        for (int n = 0; n < hqsPerTeam; n++) {
+            int tile = -1;
+            for (int tries = 0; tries < MAX_TRIES && tile == -1; tries++) {
+                int candidate = map.index(2 + random.nextInt(width - 4), 2 + random.nextInt(height - 4));
+                // keep the teams apart, and the headquarters of a team apart from each other
+                if (distSq(candidate, map.reflect(candidate)) < 100 || nearBody(candidate, 16)) continue;
+                tile = candidate;
+            }
+            if (tile == -1) {
+                throw new IllegalStateException("no room for " + hqsPerTeam + " headquarters");
+            }
+            int mirror = map.reflect(tile);
+            map.bodies.add(new MapModel.Body(id++, MapModel.TEAM_A, 0, map.x(tile), map.y(tile)));
+            map.bodies.add(new MapModel.Body(id++, MapModel.TEAM_B, 0, map.x(mirror), map.y(mirror)));
+            for (int t = 0; t < width * height; t++) {
+                if (distSq(t, tile) <= HQ_CLEAR_RADIUS_SQ) {
+                    reserved[t] = true;
+                    reserved[map.reflect(t)] = true;
+                }
+            }
+        }
+    }
+
+    private void placeWells() {
+        for (MapModel.Body hq : map.headquarters(MapModel.TEAM_A)) {
+            int center = map.index(hq.x, hq.y);
+            placeWell(MapModel.RESOURCE_ADAMANTIUM, center, HQ_WELL_RADIUS_SQ);
+            placeWell(MapModel.RESOURCE_MANA, center, HQ_WELL_RADIUS_SQ);
+        }
+        for (int i = 0; i < extraWells; i++) {
+            int type = (i % 2 == 0) ? MapModel.RESOURCE_ADAMANTIUM : MapModel.RESOURCE_MANA;
+            placeWell(type, -1, 0);
+        }
+    }
+
+    /**
+     * Places a well and its reflection, within a squared distance of a tile if {@code center} is not -1.
+     */
+    private void placeWell(int type, int center, int radiusSq) {
+        for (int tries = 0; tries < MAX_TRIES; tries++) {
+            int tile = random.nextInt(width * height);
+            if (reserved[tile] || (center != -1 && distSq(tile, center) > radiusSq)) continue;
+            int mirror = map.reflect(tile);
+            if (mirror == tile || reserved[mirror]) continue;
+            map.resources[tile] = type;
+            map.resources[mirror] = type;
+            reserved[tile] = true;
+            reserved[mirror] = true;
+            return;
+        }
+    }
+
+    private void placeIslands() {
+        int id = 1;
+        for (int i = 0; i < islandsPerTeam; i++) {
+            List<Integer> blob = growBlob(1 + random.nextInt(MAX_ISLAND_SIZE));
+            if (blob.isEmpty()) continue;
+            for (int tile : blob) {
+                int mirror = map.reflect(tile);
+                map.islands[tile] = id;
+                map.islands[mirror] = id + 1;
+                reserved[tile] = true;
+                reserved[mirror] = true;
+            }
+            id += 2;
+        }
+    }
+
+    /**
+     * Grows a blob of free tiles, none of which is its own reflection or next to the reflection of the blob.
+     */
+    private List<Integer> growBlob(int size) {
+        for (int tries = 0; tries < MAX_TRIES; tries++) {
+            int start = random.nextInt(width * height);
+            if (!isFreeForIsland(start)) continue;
+            List<Integer> blob = new ArrayList<>();
+            blob.add(start);
+            for (int steps = 0; blob.size() < size && steps < 4 * size; steps++) {
+                int from = blob.get(random.nextInt(blob.size()));
+                int next = step(from, random.nextInt(4) * 2 + 1);
+                if (next != -1 && !blob.contains(next) && isFreeForIsland(next) && !blob.contains(map.reflect(next))) {
+                    blob.add(next);
+                }
+            }
+            return blob;
+        }
+        return new ArrayList<>();
+    }
+
+    private boolean isFreeForIsland(int tile) {
+        int mirror = map.reflect(tile);
+        return !reserved[tile] && !reserved[mirror] && distSq(tile, mirror) > 4;
+    }
+
+    private void placeWalls() {
+        int target = (int) (wallDensity * width * height);
+        int walls = 0;
+        for (int tries = 0; tries < 20 * MAX_TRIES && walls < target; tries++) {
+            // a short straight segment
+            int tile = random.nextInt(width * height);
+            int dir = 1 + random.nextInt(8);
+            int length = 2 + random.nextInt(5);
+            for (int i = 0; i < length && tile != -1; i++) {
+                int mirror = map.reflect(tile);
+                if (!reserved[tile] && !reserved[mirror] && !map.walls[tile]) {
+                    map.walls[tile] = true;
+                    map.walls[mirror] = true;
+                    walls += (mirror == tile) ? 1 : 2;
+                }
+                tile = step(tile, dir);
+            }
+        }
+    }
+
+    /**
+     * Removes walls until every headquarters, well and island can be reached from the first headquarters.
+     */
+    private void connect() {
+        MapModel.Body first = map.bodies.get(0);
+        int start = map.index(first.x, first.y);
+        boolean[] reached = flood(start);
+        for (int tile = 0; tile < width * height; tile++) {
+            if (reached[tile] || map.walls[tile] || !isFeature(tile)) continue;
+            // carve the shortest path through walls from the feature to the reached area, and its reflection
+            int[] parent = new int[width * height];
+            Arrays.fill(parent, -2);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(tile);
+            parent[tile] = -1;
+            int end = -1;
+            while (!queue.isEmpty() && end == -1) {
+                int t = queue.poll();
+                for (int dir = 1; dir <= 8; dir++) {
+                    int next = step(t, dir);
+                    if (next == -1 || parent[next] != -2) continue;
+                    parent[next] = t;
+                    if (reached[next]) {
+                        end = next;
+                        break;
+                    }
+                    queue.add(next);
+                }
+            }
+            for (int t = end; t >= 0; t = parent[t]) {
+                map.walls[t] = false;
+                map.walls[map.reflect(t)] = false;
+            }
+            reached = flood(start);
+        }
+    }
+
+    private boolean isFeature(int tile) {
+        if (map.resources[tile] != 0 || map.islands[tile] != 0) {
+            return true;
+        }
+        for (MapModel.Body body : map.bodies) {
+            if (map.index(body.x, body.y) == tile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean[] flood(int start) {
+        boolean[] reached = new boolean[width * height];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        reached[start] = true;
+        while (!queue.isEmpty()) {
+            int t = queue.poll();
+            for (int dir = 1; dir <= 8; dir++) {
+                int next = step(t, dir);
+                if (next != -1 && !reached[next] && !map.walls[next]) {
+                    reached[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private void placeClouds() {
+        int target = (int) (cloudDensity * width * height);
+        int clouds = 0;
+        for (int tries = 0; tries < 20 * MAX_TRIES && clouds < target; tries++) {
+            // a small patch around a tile
+            int center = random.nextInt(width * height);
+            for (int dir = 0; dir <= 8; dir++) {
+                int tile = (dir == 0) ? center : step(center, dir);
+                if (tile == -1 || random.nextInt(3) == 0) continue;
+                int mirror = map.reflect(tile);
+                if (!map.walls[tile] && !map.clouds[tile] && !isHeadquarters(tile) && !isHeadquarters(mirror)) {
+                    map.clouds[tile] = true;
+                    map.clouds[mirror] = true;
+                    clouds += (mirror == tile) ? 1 : 2;
+                }
+            }
+        }
+    }
+
+    private void placeCurrents() {
+        int target = (int) (currentDensity * width * height);
+        int currents = 0;
+        for (int tries = 0; tries < 20 * MAX_TRIES && currents < target; tries++) {
+            // a stream of tiles pushing in the same direction
+            int tile = random.nextInt(width * height);
+            byte current = (byte) (1 + random.nextInt(8));
+            int length = 2 + random.nextInt(4);
+            for (int i = 0; i < length; i++) {
+                int next = step(tile, current);
+                int mirror = map.reflect(tile);
+                if (next == -1 || map.walls[next] || map.walls[map.reflect(next)]) break;
+                if (!map.walls[tile] && !reserved[tile] && !reserved[mirror] && map.currents[tile] == 0 && mirror != tile) {
+                    map.currents[tile] = current;
+                    map.currents[mirror] = map.reflectCurrent(current);
+                    currents += 2;
+                }
+                tile = next;
+            }
+        }
+    }
+
+    private boolean isHeadquarters(int tile) {
+        for (MapModel.Body body : map.bodies) {
+            if (map.index(body.x, body.y) == tile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nearBody(int tile, int radiusSq) {
+        for (MapModel.Body body : map.bodies) {
+            if (distSq(tile, map.index(body.x, body.y)) < radiusSq) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The tile next to a tile in a direction (direction order of the engine), or -1 off the map.
+     */
+    private int step(int tile, int dir) {
+        int x = map.x(tile) + MapModel.CURRENT_DX[dir];
+        int y = map.y(tile) + MapModel.CURRENT_DY[dir];
+        return map.onMap(x, y) ? map.index(x, y) : -1;
+    }
+
+    private int distSq(int a, int b) {
+        int dx = map.x(a) - map.x(b), dy = map.y(a) - map.y(b);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Writes maps spanning the sizes, symmetries and densities allowed: sizes step from the smallest to the largest,
+     * and walls, islands and headquarters grow with the index.
+     */
+    public static List<Path> corpus(int count, long seed, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MapGenerator generator = new MapGenerator();
+            double t = (count == 1) ? 0 : (double) i / (count - 1);
+            generator.width = MapModel.MIN_SIZE + (int) Math.round(t * (MapModel.MAX_SIZE - MapModel.MIN_SIZE));
+            generator.height = generator.width;
+            generator.symmetry = i % 3;
+            generator.seed = seed + i;
+            generator.hqsPerTeam = 1 + i % 4;
+            generator.islandsPerTeam = 1 + (i * 7) % (MapModel.MAX_ISLANDS / 2);
+            generator.extraWells = i % 5;
+            generator.wallDensity = 0.05 * (i % 7);
+            generator.cloudDensity = 0.03 * (i % 4);
+            generator.currentDensity = 0.02 * (1 + (i / 3) % 3);
+            String name = "gen" + i + "s" + generator.width;
+            Path file = dir.resolve(name + ".map23");
+            MapWriter.write(generator.generate(name), file);
+            files.add(file);
+        }
+        return files;
+    }
+
+    public static void main(String[] args) throws IOException {
+        MapGenerator generator = new MapGenerator();
+        String name = "generated";
+        Path out = Paths.get("build", "maps");
+        int corpus = 0;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq == -1) {
+                throw new IllegalArgumentException("expected --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq), value = arg.substring(eq + 1);
+            switch (key) {
+                case "name": name = value; break;
+                case "width": generator.width = Integer.parseInt(value); break;
+                case "height": generator.height = Integer.parseInt(value); break;
+                case "symmetry": generator.symmetry = parseSymmetry(value); break;
+                case "seed": generator.seed = Long.parseLong(value); break;
+                case "hqs": generator.hqsPerTeam = Integer.parseInt(value); break;
+                case "wells": generator.extraWells = Integer.parseInt(value); break;
+                case "islands": generator.islandsPerTeam = Integer.parseInt(value); break;
+                case "walls": generator.wallDensity = Double.parseDouble(value); break;
+                case "clouds": generator.cloudDensity = Double.parseDouble(value); break;
+                case "currents": generator.currentDensity = Double.parseDouble(value); break;
+                case "out": out = Paths.get(value); break;
+                case "corpus": corpus = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("unknown option: " + key);
+            }
+        }
+        if (corpus > 0) {
+            for (Path file : corpus(corpus, generator.seed, out)) {
+                System.out.println(file);
+            }
+            return;
+        }
+        Files.createDirectories(out);
+        Path file = out.resolve(name + ".map23");
+        MapWriter.write(generator.generate(name), file);
+        System.out.println(file);
+    }
+
+    static int parseSymmetry(String value) {
+        switch (value) {
+            case "rotational": return MapModel.SYMMETRY_ROTATIONAL;
+            case "horizontal": return MapModel.SYMMETRY_HORIZONTAL;
+            case "vertical": return MapModel.SYMMETRY_VERTICAL;
+            default: throw new IllegalArgumentException("unknown symmetry: " + value);
+        }
+    }
+
+}
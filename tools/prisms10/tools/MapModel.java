@@ -0,0 +1,166 @@
+package prisms10.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map of the game held as plain arrays, as stored in {@code .map23} files.
+ * <p>
+ * Tiles are indexed by {@code x + y * width}. Currents are stored as the direction order number of the engine (see
+ * {@link #CURRENT_DX}), resources as the resource ID (1 adamantium, 2 mana, 3 elixir), and islands as the island ID;
+ * 0 means none. The headquarters are the bodies spawned at the start of the game.
+ */
+public class MapModel {
+
+    // symmetries, in the order of the engine
+    public static final int SYMMETRY_ROTATIONAL = 0;
+    public static final int SYMMETRY_HORIZONTAL = 1; // mirrored across a horizontal line: y changes
+    public static final int SYMMETRY_VERTICAL = 2;   // mirrored across a vertical line: x changes
+
+    public static final int TEAM_A = 1;
+    public static final int TEAM_B = 2;
+
+    public static final int RESOURCE_ADAMANTIUM = 1;
+    public static final int RESOURCE_MANA = 2;
+    public static final int RESOURCE_ELIXIR = 3;
+
+    // direction order of the engine: CENTER, WEST, SOUTHWEST, SOUTH, SOUTHEAST, EAST, NORTHEAST, NORTH, NORTHWEST
+    public static final int[] CURRENT_DX = {0, -1, -1, 0, 1, 1, 1, 0, -1};
+    public static final int[] CURRENT_DY = {0, 0, -1, -1, -1, 0, 1, 1, 1};
+
+    public static final int MIN_SIZE = 20;
+    public static final int MAX_SIZE = 60;
+    public static final int MAX_ISLANDS = 35;
+
+    public final String name;
+    public final int width;
+    public final int height;
+    public final int symmetry;
+    public int randomSeed;
+
+    public final boolean[] walls;
+    public final boolean[] clouds;
+    public final byte[] currents;
+    public final int[] islands;
+    public final int[] resources;
+
+    public final List<Body> bodies = new ArrayList<>();
+
+    /**
+     * A robot on the map at the start of the game. Maps only hold headquarters.
+     */
+    public static class Body {
+        public final int id;
+        public final int team;
+        public final int type;                       // 0 for headquarters
+        public final int x;
+        public final int y;
+
+        public Body(int id, int team, int type, int x, int y) {
+            this.id = id;
+            this.team = team;
+            this.type = type;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public MapModel(String name, int width, int height, int symmetry) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.symmetry = symmetry;
+        walls = new boolean[width * height];
+        clouds = new boolean[width * height];
+        currents = new byte[width * height];
+        islands = new int[width * height];
+        resources = new int[width * height];
+    }
+
+    public int index(int x, int y) {
+        return x + y * width;
+    }
+
+    public int x(int index) {
+        return index % width;
+    }
+
+    public int y(int index) {
+        return index / width;
+    }
+
+    public boolean onMap(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * The tile matching a tile under the symmetry of the map.
+     */
+    public int reflect(int index) {
+        int x = x(index), y = y(index);
+        switch (symmetry) {
+            case SYMMETRY_ROTATIONAL:
+                return index(width - 1 - x, height - 1 - y);
+            case SYMMETRY_HORIZONTAL:
+                return index(x, height - 1 - y);
+            case SYMMETRY_VERTICAL:
+                return index(width - 1 - x, y);
+            default:
+                throw new IllegalStateException("invalid symmetry: " + symmetry);
+        }
+    }
+
+    /**
+     * The current matching a current under the symmetry of the map.
+     */
+    public byte reflectCurrent(byte current) {
+        int dx = CURRENT_DX[current], dy = CURRENT_DY[current];
+        if (symmetry != SYMMETRY_HORIZONTAL) dx = -dx;
+        if (symmetry != SYMMETRY_VERTICAL) dy = -dy;
+        return currentOf(dx, dy);
+    }
+
+    public static byte currentOf(int dx, int dy) {
+        for (byte i = 0; i < CURRENT_DX.length; i++) {
+            if (CURRENT_DX[i] == dx && CURRENT_DY[i] == dy) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("not a direction: " + dx + ", " + dy);
+    }
+
+    /**
+     * Whether the walls, wells and islands of the map match under a symmetry, as a robot would check while guessing
+     * the symmetry of the map.
+     */
+    public boolean isSymmetric(int candidate) {
+        MapModel mirror = new MapModel(name, width, height, candidate);
+        for (int tile = 0; tile < width * height; tile++) {
+            int other = mirror.reflect(tile);
+            if (walls[tile] != walls[other] || resources[tile] != resources[other] ||
+                    (islands[tile] == 0) != (islands[other] == 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int islandCount() {
+        int count = 0;
+        for (int island : islands) {
+            count = Math.max(count, island);
+        }
+        return count;
+    }
+
+    public List<Body> headquarters(int team) {
+        List<Body> result = new ArrayList<>();
+        for (Body body : bodies) {
+            if (body.team == team) {
+                result.add(body);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,67 @@
+package prisms10.tools;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static prisms10.tools.MapWriter.*;
+
+/**
+ * Reads {@code .map23} files, as written by the engine or by {@link MapWriter}, into a {@link MapModel}.
+ * <p>
+ * Offline benchmarks (navigation, symmetry detection, well assignment) load real maps with this instead of starting
+ * the server. Maps with a minimum corner other than the origin are shifted to it.
+ */
+public class MapReader {
+
+    public static MapModel read(Path file) throws IOException {
+        return fromBytes(Files.readAllBytes(file));
+    }
+
+    public static MapModel fromBytes(byte[] bytes) {
+        FlatBufferReader in = new FlatBufferReader(bytes);
+        int root = in.root();
+        int minCorner = in.field(root, MAP_MIN_CORNER);
+        int maxCorner = in.field(root, MAP_MAX_CORNER);
+        if (maxCorner == -1) {
+            throw new IllegalArgumentException("not a map: no size");
+        }
+        int minX = (minCorner == -1) ? 0 : in.getInt(minCorner);
+        int minY = (minCorner == -1) ? 0 : in.getInt(minCorner + 4);
+        int width = in.getInt(maxCorner) - minX;
+        int height = in.getInt(maxCorner + 4) - minY;
+
+        MapModel map = new MapModel(in.stringField(root, MAP_NAME), width, height,
+                in.intField(root, MAP_SYMMETRY, MapModel.SYMMETRY_ROTATIONAL));
+        map.randomSeed = in.intField(root, MAP_RANDOM_SEED, 0);
+        copy(in.boolVector(root, MAP_WALLS), map.walls);
+        copy(in.boolVector(root, MAP_CLOUDS), map.clouds);
+        copy(in.byteVector(root, MAP_CURRENTS), map.currents);
+        copy(in.intVector(root, MAP_ISLANDS), map.islands);
+        copy(in.intVector(root, MAP_RESOURCES), map.resources);
+
+        int bodies = in.tableField(root, MAP_BODIES);
+        if (bodies != -1) {
+            int[] ids = in.intVector(bodies, BODY_IDS);
+            byte[] teams = in.byteVector(bodies, BODY_TEAMS);
+            byte[] types = in.byteVector(bodies, BODY_TYPES);
+            int locs = in.tableField(bodies, BODY_LOCS);
+            int[] xs = in.intVector(locs, VEC_XS);
+            int[] ys = in.intVector(locs, VEC_YS);
+            for (int i = 0; i < ids.length; i++) {
+                map.bodies.add(new MapModel.Body(ids[i], teams[i], types[i], xs[i] - minX, ys[i] - minY));
+            }
+        }
+        return map;
+    }
+
+    private static void copy(Object from, Object to) {
+        int length = Array.getLength(to);
+        if (Array.getLength(from) != length) {
+            throw new IllegalArgumentException("a map layer does not match the size of the map");
+        }
+        System.arraycopy(from, 0, to, 0, length);
+    }
+
+}
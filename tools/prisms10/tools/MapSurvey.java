@@ -0,0 +1,104 @@
+package prisms10.tools;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures maps offline with the facts the player depends on, one line per map: the size, the share of walls, which
+ * symmetries the walls, wells and islands allow (a robot cannot tell them apart when several fit), and the walking
+ * distance from each headquarters of team A to its nearest adamantium and mana wells.
+ * <p>
+ * Usage: {@code MapSurvey [file or directory ...]}, by default {@code maps} and {@code build/maps}.
+ */
+public class MapSurvey {
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String arg : (args.length == 0) ? new String[]{"maps", "build/maps"} : args) {
+            collect(Paths.get(arg), files);
+        }
+        System.out.println("map\tsize\twalls\tsymmetries\tadamantium\tmana");
+        for (Path file : files) {
+            System.out.println(survey(MapReader.read(file)));
+        }
+    }
+
+    static String survey(MapModel map) {
+        int walls = 0;
+        for (boolean wall : map.walls) {
+            if (wall) walls++;
+        }
+        StringBuilder symmetries = new StringBuilder();
+        for (int symmetry = 0; symmetry < 3; symmetry++) {
+            if (map.isSymmetric(symmetry)) {
+                symmetries.append("RHV".charAt(symmetry));
+            }
+        }
+        StringBuilder adamantium = new StringBuilder(), mana = new StringBuilder();
+        for (MapModel.Body hq : map.headquarters(MapModel.TEAM_A)) {
+            int[] dist = walkingDistances(map, map.index(hq.x, hq.y));
+            adamantium.append(nearest(map, dist, MapModel.RESOURCE_ADAMANTIUM)).append(' ');
+            mana.append(nearest(map, dist, MapModel.RESOURCE_MANA)).append(' ');
+        }
+        return String.format("%s\t%dx%d\t%.2f\t%s\t%s\t%s", map.name, map.width, map.height,
+                (double) walls / map.walls.length, symmetries, adamantium.toString().trim(), mana.toString().trim());
+    }
+
+    /**
+     * Number of moves from a tile to every tile, going around walls; -1 for unreachable tiles.
+     */
+    static int[] walkingDistances(MapModel map, int start) {
+        int[] dist = new int[map.width * map.height];
+        Arrays.fill(dist, -1);
+        dist[start] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int tile = queue.poll();
+            for (int dir = 1; dir < MapModel.CURRENT_DX.length; dir++) {
+                int x = map.x(tile) + MapModel.CURRENT_DX[dir], y = map.y(tile) + MapModel.CURRENT_DY[dir];
+                if (!map.onMap(x, y)) continue;
+                int next = map.index(x, y);
+                if (dist[next] == -1 && !map.walls[next]) {
+                    dist[next] = dist[tile] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return dist;
+    }
+
+    private static int nearest(MapModel map, int[] dist, int resource) {
+        int nearest = -1;
+        for (int tile = 0; tile < dist.length; tile++) {
+            if (map.resources[tile] == resource && dist[tile] != -1 && (nearest == -1 || dist[tile] < nearest)) {
+                nearest = dist[tile];
+            }
+        }
+        return nearest;
+    }
+
+    private static void collect(Path path, List<Path> files) throws IOException {
+        if (Files.isDirectory(path)) {
+            List<Path> found = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.map23")) {
+                for (Path file : stream) {
+                    found.add(file);
+                }
+            }
+            Collections.sort(found);
+            files.addAll(found);
+        } else if (Files.exists(path)) {
+            files.add(path);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package prisms10.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link MapModel} as a {@code .map23} file, the {@code GameMap} table of the engine schema:
+ * <pre>
+ * table GameMap {
+ *     name: string; minCorner: Vec; maxCorner: Vec; symmetry: int; bodies: SpawnedBodyTable; randomSeed: int;
+ *     walls: [bool]; clouds: [bool]; currents: [byte]; islands: [int]; resources: [int];
+ * }
+ * table SpawnedBodyTable { robotIDs: [int]; teamIDs: [byte]; types: [byte]; locs: VecTable; }
+ * table VecTable { xs: [int]; ys: [int]; }
+ * struct Vec { x: int; y: int; }
+ * </pre>
+ * The file is not compressed.
+ */
+public class MapWriter {
+
+    // fields of GameMap
+    static final int MAP_NAME = 0;
+    static final int MAP_MIN_CORNER = 1;
+    static final int MAP_MAX_CORNER = 2;
+    static final int MAP_SYMMETRY = 3;
+    static final int MAP_BODIES = 4;
+    static final int MAP_RANDOM_SEED = 5;
+    static final int MAP_WALLS = 6;
+    static final int MAP_CLOUDS = 7;
+    static final int MAP_CURRENTS = 8;
+    static final int MAP_ISLANDS = 9;
+    static final int MAP_RESOURCES = 10;
+    static final int MAP_FIELDS = 11;
+
+    // fields of SpawnedBodyTable and VecTable
+    static final int BODY_IDS = 0;
+    static final int BODY_TEAMS = 1;
+    static final int BODY_TYPES = 2;
+    static final int BODY_LOCS = 3;
+    static final int VEC_XS = 0;
+    static final int VEC_YS = 1;
+
+    public static void write(MapModel map, Path file) throws IOException {
+        Files.write(file, toBytes(map));
+    }
+
+    public static byte[] toBytes(MapModel map) {
+        FlatBufferWriter out = new FlatBufferWriter();
+        int root = out.startBuffer();
+
+        int[] sizes = new int[MAP_FIELDS];
+        Arrays.fill(sizes, FlatBufferWriter.SIZE_REF);
+        sizes[MAP_MIN_CORNER] = FlatBufferWriter.SIZE_VEC;
+        sizes[MAP_MAX_CORNER] = FlatBufferWriter.SIZE_VEC;
+        out.setRef(root, out.table(sizes));
+        int[] fields = new int[MAP_FIELDS];
+        for (int i = 0; i < MAP_FIELDS; i++) {
+            fields[i] = out.field(i);
+        }
+        // scalars and structs are inline; the max corner is one past the last tile
+        out.setInt(fields[MAP_MIN_CORNER], 0);
+        out.setInt(fields[MAP_MIN_CORNER] + 4, 0);
+        out.setInt(fields[MAP_MAX_CORNER], map.width);
+        out.setInt(fields[MAP_MAX_CORNER] + 4, map.height);
+        out.setInt(fields[MAP_SYMMETRY], map.symmetry);
+        out.setInt(fields[MAP_RANDOM_SEED], map.randomSeed);
+
+        out.patchRef(fields[MAP_NAME]);
+        out.string(map.name);
+        out.patchRef(fields[MAP_WALLS]);
+        out.boolVector(map.walls);
+        out.patchRef(fields[MAP_CLOUDS]);
+        out.boolVector(map.clouds);
+        out.patchRef(fields[MAP_CURRENTS]);
+        out.byteVector(map.currents);
+        out.patchRef(fields[MAP_ISLANDS]);
+        out.intVector(map.islands);
+        out.patchRef(fields[MAP_RESOURCES]);
+        out.intVector(map.resources);
+
+        writeBodies(out, map, fields[MAP_BODIES]);
+        return out.toByteArray();
+    }
+
+    private static void writeBodies(FlatBufferWriter out, MapModel map, int ref) {
+        int n = map.bodies.size();
+        int[] ids = new int[n], xs = new int[n], ys = new int[n];
+        byte[] teams = new byte[n], types = new byte[n];
+        for (int i = 0; i < n; i++) {
+            MapModel.Body body = map.bodies.get(i);
+            ids[i] = body.id;
+            teams[i] = (byte) body.team;
+            types[i] = (byte) body.type;
+            xs[i] = body.x;
+            ys[i] = body.y;
+        }
+        int size = FlatBufferWriter.SIZE_REF;
+        out.setRef(ref, out.table(new int[]{size, size, size, size}));
+        int idsAt = out.field(BODY_IDS), teamsAt = out.field(BODY_TEAMS), typesAt = out.field(BODY_TYPES),
+                locsAt = out.field(BODY_LOCS);
+        out.patchRef(idsAt);
+        out.intVector(ids);
+        out.patchRef(teamsAt);
+        out.byteVector(teams);
+        out.patchRef(typesAt);
+        out.byteVector(types);
+
+        out.setRef(locsAt, out.table(new int[]{size, size}));
+        int xsAt = out.field(VEC_XS), ysAt = out.field(VEC_YS);
+        out.patchRef(xsAt);
+        out.intVector(xs);
+        out.patchRef(ysAt);
+        out.intVector(ys);
+    }
+
+}
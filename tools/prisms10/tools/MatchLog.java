@@ -0,0 +1,137 @@
+package prisms10.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The outcome of one match and the summary telemetry lines its robots printed (see {@code prisms10.util.Telemetry}), read from
+ * the output of the engine one line at a time.
+ * <p>
+ * Robot output is printed by the engine after a header naming the team, as in {@code [A:CARRIER#12@340] @t bc ...};
+ * only the team letter of the header is used. Lines of the engine and other robot output are ignored.
+ */
+public class MatchLog {
+
+    static final String TELEMETRY = "@t ";
+    static final Pattern WINNER = Pattern.compile("\\((A|B)\\) wins \\(round (\\d+)\\)");
+    static final Pattern REASON = Pattern.compile("Reason: (.*)");
+
+    public static final int SIDE_A = 0;
+    public static final int SIDE_B = 1;
+
+    public final String map;
+    public int winner = -1;                          // SIDE_A or SIDE_B, -1 if the match did not finish
+    public int rounds;
+    public String reason = "";
+    public final Team[] teams = {new Team(), new Team()};
+
+    /**
+     * What the robots of one team reported.
+     */
+    public static class Team {
+        final Map<Integer, int[]> headquarters = new HashMap<>(); // latest hq line of each headquarters, by ID
+        public int round;                            // round of the latest hq line
+        public int robots;                           // robots alive in that round, headquarters included
+        public int islands;                          // islands held in that round
+        public final Map<String, long[]> bytecodes = new TreeMap<>(); // turns and bytecodes by robot type
+
+        /**
+         * Resources of a type brought to the headquarters, 0 for adamantium, 1 for mana, 2 for elixir.
+         */
+        public long gained(int resource) {
+            long total = 0;
+            for (int[] hq : headquarters.values()) {
+                total += hq[resource];
+            }
+            return total;
+        }
+
+        public long built() {
+            long total = 0;
+            for (int[] hq : headquarters.values()) {
+                total += hq[3];
+            }
+            return total;
+        }
+
+        /**
+         * Robots built and no longer alive.
+         */
+        public long lost() {
+            return headquarters.isEmpty() ? 0 : built() - (robots - headquarters.size());
+        }
+    }
+
+    public MatchLog(String map) {
+        this.map = map;
+    }
+
+    /**
+     * Side of the robot that printed a telemetry line, -1 for other lines.
+     */
+    static int side(String line) {
+        boolean robot = line.length() > 2 && line.charAt(0) == '[' && (line.charAt(1) == 'A' || line.charAt(1) == 'B');
+        return (robot && line.contains(TELEMETRY)) ? line.charAt(1) - 'A' : -1;
+    }
+
+    /**
+     * The kind, round, robot type and values of a telemetry line.
+     */
+    static String[] fields(String line) {
+        return line.substring(line.indexOf(TELEMETRY) + TELEMETRY.length()).split(" ");
+    }
+
+    public void accept(String line) {
+        int side = side(line);
+        if (side != -1) {
+            acceptTelemetry(teams[side], fields(line));
+            return;
+        }
+        Matcher matcher = WINNER.matcher(line);
+        if (matcher.find()) {
+            winner = matcher.group(1).charAt(0) - 'A';
+            rounds = Integer.parseInt(matcher.group(2));
+            return;
+        }
+        matcher = REASON.matcher(line);
+        if (matcher.find()) {
+            reason = matcher.group(1).trim();
+        }
+    }
+
+    private static void acceptTelemetry(Team team, String[] fields) {
+        try {
+            switch (fields[0]) {
+                case "hq": {
+                    // hq <round> <type> <id> <adamantium> <mana> <elixir> <built> <robots> <islands>
+                    int round = Integer.parseInt(fields[1]);
+                    int robots = Integer.parseInt(fields[8]), islands = Integer.parseInt(fields[9]);
+                    team.headquarters.put(Integer.parseInt(fields[3]), new int[]{Integer.parseInt(fields[4]),
+                            Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Integer.parseInt(fields[7])});
+                    if (round >= team.round) {
+                        team.round = round;
+                        team.robots = robots;
+                        team.islands = islands;
+                    }
+                    break;
+                }
+                case "bc": {
+                    // bc <round> <type> <bytecodes>
+                    long bytecodes = Long.parseLong(fields[3]);
+                    long[] total = team.bytecodes.computeIfAbsent(fields[2], type -> new long[2]);
+                    total[0]++;
+                    total[1] += bytecodes;
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // a line cut short by the end of the match, or printed by a different version of the player
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package prisms10.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The tunable constants of the player, read from the source of {@code prisms10.strategy.Params}: every
+ * {@code public static final} {@code int} or {@code float} initialized with a literal.
+ * <p>
+ * A set is rendered back into that source with only the literals changed, so that the comments stay, and the result
+ * compiles in place of the original.
+ */
+public class ParamSet {
+
+    static final Pattern CONSTANT =
+            Pattern.compile("public static final (int|float) (\\w+) = (-?[0-9.]+)f?;");
+
+    static final double MAX_FLOAT = 1;               // floats are probabilities
+    static final int MIN_INT = 1;                    // ints are counts, weights and rounds
+
+    private final String source;
+    private final List<String> names;
+    private final List<Boolean> floats;
+    private final double[] values;
+
+    private ParamSet(String source, List<String> names, List<Boolean> floats, double[] values) {
+        this.source = source;
+        this.names = names;
+        this.floats = floats;
+        this.values = values;
+    }
+
+    public static ParamSet parse(String source) {
+        List<String> names = new ArrayList<>();
+        List<Boolean> floats = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        Matcher matcher = CONSTANT.matcher(source);
+        while (matcher.find()) {
+            floats.add(matcher.group(1).equals("float"));
+            names.add(matcher.group(2));
+            values.add(Double.parseDouble(matcher.group(3)));
+        }
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return new ParamSet(source, Collections.unmodifiableList(names), Collections.unmodifiableList(floats), array);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String name(int i) {
+        return names.get(i);
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    /**
+     * A copy with each constant scaled by a random factor in {@code [1 - scale, 1 + scale]} with probability
+     * {@code rate}. Ints move by at least one when picked; floats stay within {@code [0, 1]}.
+     */
+    public ParamSet mutate(Random random, double rate, double scale) {
+        double[] mutated = values.clone();
+        for (int i = 0; i < mutated.length; i++) {
+            if (random.nextDouble() >= rate) continue;
+            double factor = 1 + scale * (2 * random.nextDouble() - 1);
+            if (floats.get(i)) {
+                mutated[i] = Math.max(0, Math.min(MAX_FLOAT, Math.round(values[i] * factor * 1000) / 1000.0));
+            } else {
+                long next = Math.round(values[i] * factor);
+                if (next == (long) values[i]) {
+                    next += random.nextBoolean() ? 1 : -1;
+                }
+                mutated[i] = Math.max(MIN_INT, next);
+            }
+        }
+        return new ParamSet(source, names, floats, mutated);
+    }
+
+    /**
+     * The source of the constants class holding this set, with a note of where it came from.
+     */
+    public String render(String note) {
+        StringBuffer out = new StringBuffer();
+        Matcher matcher = CONSTANT.matcher(source);
+        int i = 0;
+        while (matcher.find()) {
+            String literal = floats.get(i) ? format(values[i]) + "f" : Long.toString((long) values[i]);
+            matcher.appendReplacement(out, Matcher.quoteReplacement(
+                    "public static final " + matcher.group(1) + " " + matcher.group(2) + " = " + literal + ";"));
+            i++;
+        }
+        matcher.appendTail(out);
+        String rendered = out.toString();
+        if (note != null) {
+            int eol = rendered.indexOf('\n');
+            rendered = rendered.substring(0, eol + 1) + "\n// " + note + "\n" + rendered.substring(eol + 1);
+        }
+        return rendered;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            out.append(names.get(i)).append('=')
+                    .append(floats.get(i) ? format(values[i]) : Long.toString((long) values[i])).append(' ');
+        }
+        return out.toString().trim();
+    }
+
+    private static String format(double value) {
+        String text = Double.toString(value);
+        return text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+    }
+
+}
@@ -0,0 +1,247 @@
+package prisms10.tools;
+
+import battlecode.common.GameConstants;
+import battlecode.common.RobotType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the telemetry lines of match logs (see {@code prisms10.util.Telemetry}) and aggregates them into time series
+ * by side and robot type: turns, bytecodes, resources collected, transferred and received, attacks and state changes,
+ * summed over all matches of the logs in buckets of rounds.
+ * <p>
+ * Logs are read one line at a time into fixed-size tables, so that memory does not grow with the size of the logs.
+ * Logs are the output of the engine, plain or gzipped, as written by {@link BatchRunner} into {@code out/logs} or by
+ * {@code ./gradlew run -Pdebug=true}.
+ * <p>
+ * Usage: {@code TelemetryAggregator [--bucket=50] [file or directory ...]}, reading the standard input if no file is
+ * given.
+ */
+public class TelemetryAggregator {
+
+    static final RobotType[] TYPES = RobotType.values();
+    static final String[] RESOURCES = {"ADAMANTIUM", "MANA", "ELIXIR"};
+    static final int MAX_STATES = 16;                // states of a robot counted in transitions
+
+    // columns of a bucket
+    static final int TURNS = 0;
+    static final int BYTECODES = 1;
+    static final int MAX_BYTECODES = 2;
+    static final int COLLECTED = 3;                  // one column per resource
+    static final int TRANSFERRED = COLLECTED + RESOURCES.length;
+    static final int RECEIVED = TRANSFERRED + RESOURCES.length;
+    static final int ATTACKS = RECEIVED + RESOURCES.length;
+    static final int STATE_CHANGES = ATTACKS + 1;
+    static final int COLUMNS = STATE_CHANGES + 1;
+
+    final int bucket;                                // rounds per bucket
+    final long[][][][] series;                       // side, type, bucket, column
+    final long[][][][] transitions;                  // side, type, from state, to state
+    long matches;
+    long lines;
+    long skipped;                                    // telemetry lines that could not be read
+
+    public TelemetryAggregator(int bucket) {
+        this.bucket = bucket;
+        series = new long[2][TYPES.length][GameConstants.GAME_MAX_NUMBER_OF_ROUNDS / bucket + 1][COLUMNS];
+        transitions = new long[2][TYPES.length][MAX_STATES][MAX_STATES];
+    }
+
+    public void accept(String line) {
+        lines++;
+        int side = MatchLog.side(line);
+        if (side == -1) {
+            if (MatchLog.WINNER.matcher(line).find()) {
+                matches++;
+            }
+            return;
+        }
+        try {
+            String[] fields = MatchLog.fields(line);
+            int round = Integer.parseInt(fields[1]);
+            int type = typeIndex(fields[2]);
+            if (type == -1) {
+                skipped++;
+                return;
+            }
+            long[] cell = series[side][type][Math.min(Math.max(round, 0) / bucket, series[side][type].length - 1)];
+            switch (fields[0]) {
+                case "bc": {
+                    long bytecodes = Long.parseLong(fields[3]);
+                    cell[TURNS]++;
+                    cell[BYTECODES] += bytecodes;
+                    cell[MAX_BYTECODES] = Math.max(cell[MAX_BYTECODES], bytecodes);
+                    break;
+                }
+                case "col":
+                    cell[COLLECTED + resourceIndex(fields[3])] += Long.parseLong(fields[4]);
+                    break;
+                case "xfer":
+                    cell[TRANSFERRED + resourceIndex(fields[3])] += Long.parseLong(fields[4]);
+                    break;
+                case "recv":
+                    cell[RECEIVED + resourceIndex(fields[3])] += Long.parseLong(fields[4]);
+                    break;
+                case "atk":
+                    cell[ATTACKS]++;
+                    break;
+                case "st": {
+                    int from = Integer.parseInt(fields[3]), to = Integer.parseInt(fields[4]);
+                    cell[STATE_CHANGES]++;
+                    if (from >= 0 && from < MAX_STATES && to >= 0 && to < MAX_STATES) {
+                        transitions[side][type][from][to]++;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // a line cut short by the end of the match, or printed by a different version of the player
+            skipped++;
+        }
+    }
+
+    public void read(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        while ((line = in.readLine()) != null) {
+            accept(line);
+        }
+    }
+
+    public void read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            InputStream stream = file.toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+            read(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Totals of a bucket of rounds, for a side and a robot type.
+     */
+    public long get(int side, RobotType type, int round, int column) {
+        return series[side][type.ordinal()][round / bucket][column];
+    }
+
+    public long transitions(int side, RobotType type, int from, int to) {
+        return transitions[side][type.ordinal()][from][to];
+    }
+
+    /**
+     * Prints the series as tab-separated values, one row per side, robot type and bucket that saw any turn, then
+     * the state transitions.
+     */
+    public void print(PrintStream out) {
+        out.printf("# %d lines, %d matches, %d unreadable telemetry lines%n", lines, matches, skipped);
+        out.print("side\ttype\tround\tturns\tbytecodes/turn\tmax bytecodes");
+        for (String prefix : new String[]{"collected", "transferred", "received"}) {
+            for (String resource : RESOURCES) {
+                out.print("\t" + prefix + " " + resource.toLowerCase());
+            }
+        }
+        out.println("\tattacks\tstate changes");
+        for (int side = 0; side < 2; side++) {
+            for (int type = 0; type < TYPES.length; type++) {
+                for (int b = 0; b < series[side][type].length; b++) {
+                    long[] cell = series[side][type][b];
+                    if (cell[TURNS] == 0) continue;
+                    out.printf("%c\t%s\t%d\t%d\t%.0f\t%d", 'A' + side, TYPES[type], b * bucket, cell[TURNS],
+                            (double) cell[BYTECODES] / cell[TURNS], cell[MAX_BYTECODES]);
+                    for (int column = COLLECTED; column < COLUMNS; column++) {
+                        out.print("\t" + cell[column]);
+                    }
+                    out.println();
+                }
+            }
+        }
+        out.println();
+        out.println("side\ttype\tfrom\tto\tcount");
+        for (int side = 0; side < 2; side++) {
+            for (int type = 0; type < TYPES.length; type++) {
+                for (int from = 0; from < MAX_STATES; from++) {
+                    for (int to = 0; to < MAX_STATES; to++) {
+                        long count = transitions[side][type][from][to];
+                        if (count > 0) {
+                            out.printf("%c\t%s\t%d\t%d\t%d%n", 'A' + side, TYPES[type], from, to, count);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int typeIndex(String name) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int resourceIndex(String name) {
+        for (int i = 0; i < RESOURCES.length; i++) {
+            if (RESOURCES[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown resource: " + name);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int bucket = 50;
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--bucket=")) {
+                bucket = Integer.parseInt(arg.substring("--bucket=".length()));
+            } else {
+                paths.add(arg);
+            }
+        }
+        TelemetryAggregator aggregator = new TelemetryAggregator(bucket);
+        if (paths.isEmpty()) {
+            aggregator.read(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            collect(Paths.get(path), files);
+        }
+        for (Path file : files) {
+            aggregator.read(file);
+        }
+        aggregator.print(System.out);
+    }
+
+    private static void collect(Path path, List<Path> files) throws IOException {
+        if (Files.isDirectory(path)) {
+            List<Path> found = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path file : stream) {
+                    if (Files.isRegularFile(file)) found.add(file);
+                }
+            }
+            Collections.sort(found);
+            files.addAll(found);
+        } else if (Files.exists(path)) {
+            files.add(path);
+        } else {
+            throw new IOException("no such log: " + path);
+        }
+    }
+
+}
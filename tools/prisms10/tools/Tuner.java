@@ -0,0 +1,168 @@
+package prisms10.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Searches for better values of the constants in {@code prisms10.strategy.Params} by self-play, and writes the best
+ * set found as a replacement of that class.
+ * <p>
+ * The search is a simple evolution: every generation, the current best set and a number of random variations of it
+ * each play the same games against the baseline player (the player as compiled by the build), on a corpus of maps
+ * generated for that generation, and the set winning most becomes the current best. Every set is compiled into a
+ * player of its own from the sources, with its version of {@code Params.java}, and all games of a generation run in
+ * parallel through {@link BatchRunner}.
+ * <p>
+ * Usage: {@code Tuner [--generations=5] [--population=7] [--games=20] [--seed=1] [--rate=0.3] [--scale=0.3]
+ * [--threads=cores] [--params=src/prisms10/strategy/Params.java] [--sources=src,build/generated/sources/offsets/java]
+ * [--baseline=build/classes] [--out=build/tuning]}. The best set is written to {@code out/Params.java}.
+ */
+public class Tuner {
+
+    static final Path PARAMS_FILE = Paths.get("prisms10", "strategy", "Params.java");
+    static final String PLAYER = "prisms10";
+
+    int generations = 5;
+    int population = 7;                              // variations tried in each generation
+    int games = 20;                                  // games of each set in each generation, half on each side
+    long seed = 1;
+    double rate = 0.3;                               // probability that a variation changes a constant
+    double scale = 0.3;                              // largest relative change of a constant
+    Path params = Paths.get("src", "prisms10", "strategy", "Params.java");
+    List<Path> sources = Arrays.asList(Paths.get("src"), Paths.get("build", "generated", "sources", "offsets", "java"));
+    Path baseline = Paths.get("build", "classes");
+    Path out = Paths.get("build", "tuning");
+    BatchRunner runner = new BatchRunner();
+
+    ParamSet tune() throws IOException, InterruptedException {
+        Random random = new Random(seed);
+        ParamSet best = ParamSet.parse(new String(Files.readAllBytes(params), StandardCharsets.UTF_8));
+        BatchRunner.Player opponent = new BatchRunner.Player(PLAYER, baseline.toAbsolutePath());
+        System.out.println("start\t" + best);
+        for (int generation = 0; generation < generations; generation++) {
+            Path dir = out.resolve("g" + generation);
+            List<ParamSet> sets = new ArrayList<>();
+            sets.add(best);
+            for (int i = 0; i < population; i++) {
+                sets.add(best.mutate(random, rate, scale));
+            }
+
+            // every set plays the same games, all in one batch
+            Path mapPath = dir.resolve("maps");
+            List<String> maps = BatchRunner.generateCorpus((games + 1) / 2, seed * 1000 + generation, mapPath);
+            List<BatchRunner.Game> batch = new ArrayList<>();
+            for (int i = 0; i < sets.size(); i++) {
+                Path classes = compile(sets.get(i), dir.resolve("set" + i));
+                batch.addAll(BatchRunner.bothSides(maps, mapPath, games,
+                        new BatchRunner.Player(PLAYER, classes.toAbsolutePath()), opponent));
+            }
+            runner.out = dir;
+            List<MatchLog> logs = runner.run(batch);
+
+            int bestIndex = 0;
+            double bestScore = -1;
+            for (int i = 0; i < sets.size(); i++) {
+                int from = i * games, to = from + games;
+                double score = score(batch.subList(from, to), logs.subList(from, to));
+                System.out.printf("g%d set%d\t%.3f\t%s%n", generation, i, score, sets.get(i));
+                // the current best keeps its place on ties
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestIndex = i;
+                }
+            }
+            best = sets.get(bestIndex);
+            System.out.printf("g%d best\t%.3f\t%s%n", generation, bestScore, best);
+        }
+        return best;
+    }
+
+    /**
+     * Share of the games won, unfinished games counting as lost.
+     */
+    static double score(List<BatchRunner.Game> games, List<MatchLog> logs) {
+        int won = 0;
+        for (int i = 0; i < games.size(); i++) {
+            if (logs.get(i).winner == games.get(i).playerSide()) won++;
+        }
+        return (double) won / Math.max(1, games.size());
+    }
+
+    /**
+     * Compiles the player with the constants of a set into a directory, returning the directory of the classes.
+     */
+    Path compile(ParamSet set, Path dir) throws IOException {
+        Path source = dir.resolve("src").resolve(PARAMS_FILE);
+        Files.createDirectories(source.getParent());
+        Files.write(source, set.render(null).getBytes(StandardCharsets.UTF_8));
+        Path classes = dir.resolve("classes");
+        Files.createDirectories(classes);
+
+        List<String> args = new ArrayList<>(Arrays.asList("-nowarn", "-encoding", "UTF-8", "-source", "1.8",
+                "-target", "1.8", "-cp", runner.classpath, "-d", classes.toString()));
+        args.add(source.toString());
+        for (Path root : sources) {
+            if (!Files.isDirectory(root)) continue;
+            try (Stream<Path> files = Files.walk(root)) {
+                args.addAll(files.filter(file -> file.toString().endsWith(".java") && !file.endsWith(PARAMS_FILE))
+                        .map(Path::toString).collect(Collectors.toList()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new IllegalStateException("the tuner needs a JDK to compile players");
+        }
+        if (javac.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IOException("the player does not compile with " + set);
+        }
+        return classes;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Tuner tuner = new Tuner();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq == -1) {
+                throw new IllegalArgumentException("expected --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq), value = arg.substring(eq + 1);
+            switch (key) {
+                case "generations": tuner.generations = Integer.parseInt(value); break;
+                case "population": tuner.population = Integer.parseInt(value); break;
+                case "games": tuner.games = Integer.parseInt(value); break;
+                case "seed": tuner.seed = Long.parseLong(value); break;
+                case "rate": tuner.rate = Double.parseDouble(value); break;
+                case "scale": tuner.scale = Double.parseDouble(value); break;
+                case "threads": tuner.runner.threads = Integer.parseInt(value); break;
+                case "params": tuner.params = Paths.get(value); break;
+                case "sources":
+                    tuner.sources = new ArrayList<>();
+                    for (String path : value.split(",")) tuner.sources.add(Paths.get(path.trim()));
+                    break;
+                case "baseline": tuner.baseline = Paths.get(value); break;
+                case "out": tuner.out = Paths.get(value); break;
+                default: throw new IllegalArgumentException("unknown option: " + key);
+            }
+        }
+        ParamSet best = tuner.tune();
+        Path file = tuner.out.resolve("Params.java");
+        Files.write(file, best.render(String.format("Generated by prisms10.tools.Tuner: seed %d, %d generations of %d.",
+                tuner.seed, tuner.generations, tuner.population)).getBytes(StandardCharsets.UTF_8));
+        System.out.println(file);
+    }
+
+}